@@ -0,0 +1,78 @@
+package com.tatanav;
+
+import java.util.Arrays;
+
+/**
+ * Bar Aggregator - OHLC bars of every symbol at every BarInterval
+ * Series are kept per SymbolTable id and created on a symbol's first
+ * calculation; each record updates one bar per interval.
+ *
+ * Updated and read on the EDT.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class BarAggregator implements CalculationSink {
+    
+    private static final BarInterval[] INTERVALS = BarInterval.values();
+    
+    private final SymbolTable symbols;
+    private final int capacity;
+    private OhlcSeries[][] series = new OhlcSeries[16][];
+    
+    /**
+     * @param capacity bars retained per symbol and interval
+     */
+    BarAggregator(SymbolTable symbols, int capacity) {
+        this.symbols = symbols;
+        this.capacity = capacity;
+    }
+    
+    @Override
+    public void record(String stock, long buying, long selling, long nav,
+                       long profitLoss, double profitLossPercent, long timestamp) {
+        add(symbols.idOf(stock), nav, timestamp);
+    }
+    
+    /**
+     * Fold a NAV in paise into every bar series of a symbol id
+     */
+    void add(int id, long nav, long timestamp) {
+        if (id >= series.length) {
+            series = Arrays.copyOf(series, Math.max(id + 1, series.length * 2));
+        }
+        OhlcSeries[] bySymbol = series[id];
+        if (bySymbol == null) {
+            bySymbol = new OhlcSeries[INTERVALS.length];
+            for (int i = 0; i < INTERVALS.length; i++) {
+                bySymbol[i] = new OhlcSeries(INTERVALS[i], capacity);
+            }
+            series[id] = bySymbol;
+        }
+        double rupees = Money.toRupees(nav);
+        for (OhlcSeries bars : bySymbol) {
+            bars.add(timestamp, rupees);
+        }
+    }
+    
+    /**
+     * Bars of a symbol at an interval, or null if the symbol has none
+     */
+    OhlcSeries series(String symbol, BarInterval interval) {
+        int id = symbols.find(symbol);
+        if (id < 0 || id >= series.length || series[id] == null) {
+            return null;
+        }
+        return series[id][interval.ordinal()];
+    }
+    
+    void clear() {
+        for (OhlcSeries[] bySymbol : series) {
+            if (bySymbol != null) {
+                for (OhlcSeries bars : bySymbol) {
+                    bars.clear();
+                }
+            }
+        }
+    }
+}
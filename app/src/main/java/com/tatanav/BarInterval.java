@@ -0,0 +1,36 @@
+package com.tatanav;
+
+import java.util.TimeZone;
+
+/**
+ * Bar Interval - Time buckets for OHLC aggregation
+ * Buckets are aligned to the local time zone, so daily bars start at
+ * local midnight rather than at midnight UTC
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+enum BarInterval {
+    ONE_MINUTE("1m", 60000L),
+    FIVE_MINUTES("5m", 5 * 60000L),
+    ONE_HOUR("1h", 60 * 60000L),
+    ONE_DAY("1d", 24 * 60 * 60000L);
+    
+    private static final TimeZone ZONE = TimeZone.getDefault();
+    
+    final String label;
+    final long millis;
+    
+    BarInterval(String label, long millis) {
+        this.label = label;
+        this.millis = millis;
+    }
+    
+    /**
+     * Start of the bucket containing an epoch-millisecond timestamp
+     */
+    long bucketStart(long timestamp) {
+        long offset = ZONE.getOffset(timestamp);
+        return Math.floorDiv(timestamp + offset, millis) * millis - offset;
+    }
+}
@@ -0,0 +1,242 @@
+package com.tatanav;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Batch Calculator - Headless NAV engine for large CSV revaluation runs
+ * Reads (stock, buying, selling) rows, spreads them across all cores and
+ * writes NAV, profit/loss and P/L percentage for every accepted row
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class BatchCalculator {
+    
+    private static final int BLOCK_ROWS = 1 << 16;
+    private static final String OUTPUT_HEADER = "stock,buying,selling,nav,profitLoss,profitLossPercent";
+    
+    private final Path input;
+    private final Path output;
+    private final int threads;
+    
+    /**
+     * Outcome of one batch run
+     */
+    static final class Summary {
+        final long accepted;
+        final long rejected;
+        final long elapsedNanos;
+        
+        Summary(long accepted, long rejected, long elapsedNanos) {
+            this.accepted = accepted;
+            this.rejected = rejected;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (accepted + rejected) * 1e9 / elapsedNanos;
+        }
+    }
+    
+    /**
+     * Calculated output for one slice of a block
+     */
+    private static final class Slice {
+        final StringBuilder text = new StringBuilder();
+        long accepted;
+        long rejected;
+    }
+    
+    BatchCalculator(Path input, Path output, int threads) {
+        this.input = input;
+        this.output = output;
+        this.threads = Math.max(1, threads);
+    }
+    
+    /**
+     * Command line entry point: --batch in.csv --out out.csv [--threads N]
+     */
+    static int run(String[] args) {
+        String in = null;
+        String out = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--batch":
+                        in = args[++i];
+                        break;
+                    case "--out":
+                        out = args[++i];
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        System.err.println("Unknown option: " + args[i]);
+                        printUsage();
+                        return 2;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            printUsage();
+            return 2;
+        }
+        
+        if (in == null || out == null) {
+            printUsage();
+            return 2;
+        }
+        
+        try {
+            Summary summary = new BatchCalculator(Paths.get(in), Paths.get(out), threads).process();
+            System.out.println("Processed " + (summary.accepted + summary.rejected) + " rows ("
+                + summary.rejected + " rejected) in " + summary.elapsedNanos / 1000000 + " ms using "
+                + threads + " threads - " + (long) summary.rowsPerSecond() + " rows/sec");
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Batch calculation failed: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    private static void printUsage() {
+        System.err.println("Usage: java TataNavCalculator --batch <in.csv> --out <out.csv> [--threads N]");
+        System.err.println("Input rows: stock,buying,selling (an optional header line is skipped)");
+    }
+    
+    /**
+     * Run the batch. Reading of the next block overlaps with calculation of the current one.
+     */
+    Summary process() throws IOException {
+        long start = System.nanoTime();
+        long accepted = 0;
+        long rejected = 0;
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "nav-batch");
+            t.setDaemon(true);
+            return t;
+        });
+        
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write(OUTPUT_HEADER);
+            writer.newLine();
+            
+            String[] block = new String[BLOCK_ROWS];
+            int count = readBlock(reader, block, true);
+            while (count > 0) {
+                List<Future<Slice>> pending = submitBlock(pool, block, count);
+                
+                // Read ahead into a fresh block while the workers chew on this one
+                block = new String[BLOCK_ROWS];
+                count = readBlock(reader, block, false);
+                
+                for (Future<Slice> future : pending) {
+                    Slice slice = await(future);
+                    writer.append(slice.text);
+                    accepted += slice.accepted;
+                    rejected += slice.rejected;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        return new Summary(accepted, rejected, System.nanoTime() - start);
+    }
+    
+    private List<Future<Slice>> submitBlock(ExecutorService pool, String[] block, int count) {
+        List<Future<Slice>> futures = new ArrayList<>(threads);
+        int perSlice = (count + threads - 1) / threads;
+        for (int from = 0; from < count; from += perSlice) {
+            final int lo = from;
+            final int hi = Math.min(count, from + perSlice);
+            futures.add(pool.submit(() -> calculateSlice(block, lo, hi)));
+        }
+        return futures;
+    }
+    
+    private static Slice await(Future<Slice> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch worker failed: " + e.getCause(), e.getCause());
+        }
+    }
+    
+    private static int readBlock(BufferedReader reader, String[] block, boolean first) throws IOException {
+        int count = 0;
+        String line;
+        while (count < block.length && (line = reader.readLine()) != null) {
+            if (first && count == 0 && isHeader(line)) {
+                first = false;
+                continue;
+            }
+            block[count++] = line;
+        }
+        return count;
+    }
+    
+    private static boolean isHeader(String line) {
+        return line.regionMatches(true, 0, "stock", 0, 5) || line.regionMatches(true, 0, "symbol", 0, 6);
+    }
+    
+    /**
+     * Validate and calculate rows [from, to) the same way performCalculation does
+     */
+    private static Slice calculateSlice(String[] rows, int from, int to) {
+        Slice slice = new Slice();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        
+        for (int i = from; i < to; i++) {
+            String row = rows[i];
+            int first = row.indexOf(',');
+            int second = first < 0 ? -1 : row.indexOf(',', first + 1);
+            if (second < 0) {
+                slice.rejected++;
+                continue;
+            }
+            
+            // Prices are parsed in place into paise; INVALID is negative, so it is rejected below
+            int end = row.indexOf(',', second + 1);
+            long buying = Money.parse(row, first + 1, second);
+            long selling = Money.parse(row, second + 1, end < 0 ? row.length() : end);
+            String stock = row.substring(0, first).trim().toUpperCase();
+            if (stock.isEmpty() || buying <= 0 || selling <= 0) {
+                slice.rejected++;
+                continue;
+            }
+            
+            long nav = NavEngine.calculateNavPaise(buying, selling, random.nextDouble(), now);
+            StringBuilder out = slice.text;
+            out.append(stock).append(',');
+            Money.appendTo(out, buying).append(',');
+            Money.appendTo(out, selling).append(',');
+            Money.appendTo(out, nav).append(',');
+            Money.appendTo(out, NavEngine.profitLossPaise(buying, selling)).append(',');
+            DecimalText.appendFixed(out, NavEngine.profitLossPercentPaise(buying, selling), 2).append('\n');
+            slice.accepted++;
+        }
+        return slice;
+    }
+}
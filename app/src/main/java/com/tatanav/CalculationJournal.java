@@ -0,0 +1,345 @@
+package com.tatanav;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Calculation Journal - Durable append-only log of calculations
+ * Records are fixed-width binary slots in a memory-mapped file, each with
+ * a CRC32 over its payload. Replay stops at the first slot that is empty,
+ * torn or from an older generation, so a crash loses at most the records
+ * written since the last sync.
+ *
+ * File layout: a 64-byte header (magic, version, record size, generation)
+ * followed by 96-byte records:
+ *   0 marker | 4 crc32 | 8 generation | 12 symbol length | 16 timestamp
+ *   24 buying | 32 selling | 40 nav | 48 profitLoss | 56 profitLossPercent
+ *   64 symbol bytes (UTF-8, up to 32)
+ * Version 2 stores the four amounts as long paise; version 1 files, which
+ * hold them as doubles, are still replayed and appended to in their own
+ * format until the next reset upgrades them.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class CalculationJournal implements Closeable {
+    
+    private static final long MAGIC = 0x4E41564A524E4C31L; // "NAVJRNL1"
+    private static final int VERSION = 2;
+    private static final int DOUBLE_AMOUNTS_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 96;
+    private static final int RECORD_MARKER = 0x4E415652; // "NAVR"
+    static final int MAX_SYMBOL_BYTES = 32;
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+    private static final long SEGMENT_SIZE = (long) RECORDS_PER_SEGMENT * RECORD_SIZE;
+    
+    private final Path path;
+    private final FileChannel channel;
+    private final int syncEvery;
+    private final long syncMillis;
+    private final CRC32 crc = new CRC32();
+    private final byte[] symbolBuffer = new byte[MAX_SYMBOL_BYTES];
+    
+    // Small decode cache so replay does not build a new String per record
+    private final byte[][] cachedSymbolBytes = new byte[256][];
+    private final String[] cachedSymbols = new String[256];
+    
+    private int version;
+    private int generation;
+    private long recordCount;
+    private MappedByteBuffer segment;
+    private long segmentIndex = -1;
+    private int unsynced;
+    private long lastSync;
+    
+    /**
+     * Open or create the journal. Call replay() or reset() before the first
+     * append.
+     */
+    CalculationJournal(Path path, int syncEvery, long syncMillis) throws IOException {
+        this.path = path;
+        this.syncEvery = Math.max(1, syncEvery);
+        this.syncMillis = syncMillis;
+        
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        
+        if (channel.size() < HEADER_SIZE) {
+            version = VERSION;
+            generation = 1;
+            writeHeader();
+        } else {
+            readHeader();
+        }
+        lastSync = System.currentTimeMillis();
+    }
+    
+    Path path() {
+        return path;
+    }
+    
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        header.flip();
+        version = header.getInt(8);
+        if (header.getLong(0) != MAGIC || (version != VERSION && version != DOUBLE_AMOUNTS_VERSION)
+                || header.getInt(12) != RECORD_SIZE) {
+            throw new IOException("Not a calculation journal: " + path);
+        }
+        generation = header.getInt(16);
+    }
+    
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(0, MAGIC);
+        header.putInt(8, version);
+        header.putInt(12, RECORD_SIZE);
+        header.putInt(16, generation);
+        channel.write(header, 0);
+        channel.force(true);
+    }
+    
+    /**
+     * Feed every valid record to the sink and position the journal for
+     * appending after the last one. Returns the number of records replayed.
+     */
+    long replay(CalculationSink sink) throws IOException {
+        long fileRecords = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+        long n = 0;
+        boolean corrupt = false;
+        
+        while (n < fileRecords) {
+            MappedByteBuffer buffer = segmentFor(n);
+            int offset = (int) (n % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+            int marker = buffer.getInt(offset);
+            if (marker != RECORD_MARKER || buffer.getInt(offset + 8) != generation) {
+                corrupt = leftoverFromThisGeneration(buffer, offset, n + 1 < fileRecords);
+                break;
+            }
+            if (buffer.getInt(offset + 4) != checksum(buffer, offset)) {
+                corrupt = true;
+                break;
+            }
+            
+            sink.record(decodeSymbol(buffer, offset),
+                amount(buffer, offset + 24), amount(buffer, offset + 32),
+                amount(buffer, offset + 40), amount(buffer, offset + 48),
+                buffer.getDouble(offset + 56), buffer.getLong(offset + 16));
+            n++;
+        }
+        
+        recordCount = n;
+        if (corrupt) {
+            // A torn write left a damaged slot; wipe everything after the last
+            // good record so stale slots can never be replayed later
+            zeroFrom(HEADER_SIZE + n * RECORD_SIZE);
+        }
+        return n;
+    }
+    
+    private long amount(MappedByteBuffer buffer, int index) {
+        return version == DOUBLE_AMOUNTS_VERSION ? Money.ofRupees(buffer.getDouble(index)) : buffer.getLong(index);
+    }
+    
+    private void putAmount(MappedByteBuffer buffer, int index, long paise) {
+        if (version == DOUBLE_AMOUNTS_VERSION) {
+            buffer.putDouble(index, Money.toRupees(paise));
+        } else {
+            buffer.putLong(index, paise);
+        }
+    }
+    
+    /**
+     * Replay stopped at this slot. It is a clean end unless the slot or the one
+     * after it carries the current generation (a torn or out-of-order write).
+     */
+    private boolean leftoverFromThisGeneration(MappedByteBuffer buffer, int offset, boolean hasNext)
+            throws IOException {
+        if (buffer.getInt(offset + 8) == generation) {
+            return true;
+        }
+        if (!hasNext) {
+            return false;
+        }
+        long next = (offset / RECORD_SIZE) + 1 + segmentIndex * RECORDS_PER_SEGMENT;
+        MappedByteBuffer nextBuffer = segmentFor(next);
+        int nextOffset = (int) (next % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        return nextBuffer.getInt(nextOffset + 8) == generation;
+    }
+    
+    /**
+     * Append one record with amounts in paise; syncs to disk every
+     * syncEvery records or syncMillis
+     */
+    void append(String stock, long buying, long selling, long nav,
+                long profitLoss, double profitLossPercent, long timestamp) throws IOException {
+        write(stock, buying, selling, nav, profitLoss, profitLossPercent, timestamp);
+        if (++unsynced >= syncEvery || System.currentTimeMillis() - lastSync >= syncMillis) {
+            sync();
+        }
+    }
+    
+    /**
+     * Append a batch of calculated ticks, syncing at most once after the
+     * whole batch rather than every syncEvery records
+     */
+    void append(TickBatch batch, SymbolTable symbols) throws IOException {
+        for (int i = 0; i < batch.count; i++) {
+            write(symbols.name(batch.symbolIds[i]), batch.buying[i], batch.selling[i], batch.nav[i],
+                batch.profitLoss[i], batch.profitLossPercent[i], batch.timestamps[i]);
+        }
+        unsynced += batch.count;
+        if (unsynced >= syncEvery || System.currentTimeMillis() - lastSync >= syncMillis) {
+            sync();
+        }
+    }
+    
+    private void write(String stock, long buying, long selling, long nav,
+                       long profitLoss, double profitLossPercent, long timestamp) throws IOException {
+        MappedByteBuffer buffer = segmentFor(recordCount);
+        int offset = (int) (recordCount % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        
+        int length = encodeSymbol(stock);
+        buffer.putInt(offset + 8, generation);
+        buffer.putInt(offset + 12, length);
+        buffer.putLong(offset + 16, timestamp);
+        putAmount(buffer, offset + 24, buying);
+        putAmount(buffer, offset + 32, selling);
+        putAmount(buffer, offset + 40, nav);
+        putAmount(buffer, offset + 48, profitLoss);
+        buffer.putDouble(offset + 56, profitLossPercent);
+        for (int i = 0; i < MAX_SYMBOL_BYTES; i++) {
+            buffer.put(offset + 64 + i, i < length ? symbolBuffer[i] : 0);
+        }
+        buffer.putInt(offset + 4, checksum(buffer, offset));
+        // The marker goes last so a half-written slot is never seen as valid
+        buffer.putInt(offset, RECORD_MARKER);
+        recordCount++;
+    }
+    
+    /**
+     * Force outstanding records to disk
+     */
+    void sync() {
+        if (segment != null && unsynced > 0) {
+            segment.force();
+        }
+        unsynced = 0;
+        lastSync = System.currentTimeMillis();
+    }
+    
+    /**
+     * Discard all records by starting a new generation; old slots become
+     * invalid and the file moves to the current version
+     */
+    void reset() throws IOException {
+        sync();
+        version = VERSION;
+        generation++;
+        writeHeader();
+        recordCount = 0;
+    }
+    
+    long size() {
+        return recordCount;
+    }
+    
+    private MappedByteBuffer segmentFor(long record) throws IOException {
+        long index = record / RECORDS_PER_SEGMENT;
+        if (index != segmentIndex) {
+            if (segment != null && unsynced > 0) {
+                segment.force();
+                unsynced = 0;
+            }
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + index * SEGMENT_SIZE,
+                SEGMENT_SIZE);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            segmentIndex = index;
+        }
+        return segment;
+    }
+    
+    private int checksum(MappedByteBuffer buffer, int offset) {
+        crc.reset();
+        int position = buffer.position();
+        int limit = buffer.limit();
+        buffer.limit(offset + RECORD_SIZE).position(offset + 8);
+        crc.update(buffer);
+        buffer.limit(limit).position(position);
+        return (int) crc.getValue();
+    }
+    
+    private int encodeSymbol(String stock) {
+        byte[] bytes = stock.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_SYMBOL_BYTES);
+        // Never cut a multi-byte character in half
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        System.arraycopy(bytes, 0, symbolBuffer, 0, length);
+        return length;
+    }
+    
+    private String decodeSymbol(MappedByteBuffer buffer, int offset) {
+        int length = Math.min(buffer.getInt(offset + 12), MAX_SYMBOL_BYTES);
+        int hash = length;
+        for (int i = 0; i < length; i++) {
+            symbolBuffer[i] = buffer.get(offset + 64 + i);
+            hash = 31 * hash + symbolBuffer[i];
+        }
+        
+        int slot = hash & (cachedSymbols.length - 1);
+        byte[] cached = cachedSymbolBytes[slot];
+        if (cached != null && cached.length == length && regionEquals(cached, length)) {
+            return cachedSymbols[slot];
+        }
+        
+        byte[] copy = new byte[length];
+        System.arraycopy(symbolBuffer, 0, copy, 0, length);
+        String symbol = new String(copy, StandardCharsets.UTF_8);
+        cachedSymbolBytes[slot] = copy;
+        cachedSymbols[slot] = symbol;
+        return symbol;
+    }
+    
+    private boolean regionEquals(byte[] cached, int length) {
+        for (int i = 0; i < length; i++) {
+            if (cached[i] != symbolBuffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void zeroFrom(long position) throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocate(64 * 1024);
+        long size = channel.size();
+        while (position < size) {
+            zeros.clear().limit((int) Math.min(zeros.capacity(), size - position));
+            position += channel.write(zeros, position);
+        }
+        channel.force(false);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        sync();
+        segment = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,95 @@
+package com.tatanav;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Calculation Pipeline - Runs NAV calculations off the Event Dispatch Thread
+ * Requests are coalesced per symbol: if a symbol is submitted again before
+ * its previous request was picked up, only the latest prices are
+ * calculated. Results are published back on the EDT.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class CalculationPipeline {
+    
+    /**
+     * Prices waiting to be calculated for one symbol
+     */
+    private static final class Request {
+        final String stock;
+        final long buying;
+        final long selling;
+        
+        Request(String stock, long buying, long selling) {
+            this.stock = stock;
+            this.buying = buying;
+            this.selling = selling;
+        }
+    }
+    
+    private final ExecutorService executor = TaskExecutors.newPerTaskExecutor("nav-calc");
+    private final ConcurrentHashMap<String, Request> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final CalculationSink onResult;
+    private final Consumer<Exception> onError;
+    private final Metrics metrics;
+    
+    /**
+     * Both callbacks are invoked on the EDT; the NAV math is timed into metrics
+     */
+    CalculationPipeline(CalculationSink onResult, Consumer<Exception> onError, Metrics metrics) {
+        this.onResult = onResult;
+        this.onError = onError;
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Queue a calculation with prices in paise; replaces a still-pending
+     * request for the same symbol
+     */
+    void submit(String stock, long buying, long selling) {
+        if (pending.put(stock, new Request(stock, buying, selling)) == null) {
+            inFlight.incrementAndGet();
+            executor.execute(() -> process(stock));
+        }
+    }
+    
+    /**
+     * Number of symbols submitted whose result has not been published yet
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+    
+    private void process(String stock) {
+        Request request = pending.remove(stock);
+        try {
+            long start = metrics.start();
+            long nav = NavEngine.calculateNavPaise(request.buying, request.selling);
+            long profitLoss = NavEngine.profitLossPaise(request.buying, request.selling);
+            double profitLossPercent = NavEngine.profitLossPercentPaise(request.buying, request.selling);
+            long timestamp = System.currentTimeMillis();
+            metrics.record(Metrics.Stage.CALCULATION, start);
+            
+            SwingUtilities.invokeLater(() -> {
+                inFlight.decrementAndGet();
+                onResult.record(request.stock, request.buying, request.selling, nav,
+                    profitLoss, profitLossPercent, timestamp);
+            });
+        } catch (RuntimeException e) {
+            SwingUtilities.invokeLater(() -> {
+                inFlight.decrementAndGet();
+                onError.accept(e);
+            });
+        }
+    }
+    
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
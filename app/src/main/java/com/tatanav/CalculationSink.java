@@ -0,0 +1,15 @@
+package com.tatanav;
+
+/**
+ * Calculation Sink - Receives calculation records streamed out of storage
+ * Matches HistoryStore.append, so a store can be used as a sink directly.
+ * Buying, selling, NAV and profit/loss are amounts in paise (see Money).
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+interface CalculationSink {
+    
+    void record(String stock, long buying, long selling, long nav,
+                long profitLoss, double profitLossPercent, long timestamp);
+}
@@ -0,0 +1,180 @@
+package com.tatanav;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Channel Text Writer - Buffered text output straight into a FileChannel
+ * Numbers and timestamps are encoded digit by digit into a direct buffer,
+ * so bulk writers run in constant memory without String.format
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class ChannelTextWriter implements Closeable {
+    
+    private static final int BUFFER_SIZE = 256 * 1024;
+    
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+    private final StringBuilder fixed = new StringBuilder(32);
+    
+    ChannelTextWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+    
+    ChannelTextWriter write(byte b) throws IOException {
+        ensure(1);
+        buffer.put(b);
+        return this;
+    }
+    
+    ChannelTextWriter write(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.capacity()) {
+            flush();
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+            return this;
+        }
+        ensure(bytes.length);
+        buffer.put(bytes);
+        return this;
+    }
+    
+    /**
+     * Write a string as UTF-8; meant for headers and other one-off text
+     */
+    ChannelTextWriter write(String text) throws IOException {
+        return write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    ChannelTextWriter write(long value) throws IOException {
+        ensure(20);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return write(Long.toString(value));
+            }
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (n > 0) {
+            buffer.put(digits[--n]);
+        }
+        return this;
+    }
+    
+    /**
+     * Write value rounded half-up to the given number of decimals (0-8)
+     */
+    ChannelTextWriter writeFixed(double value, int decimals) throws IOException {
+        // Formatted by DecimalText so both round alike; the text is ASCII
+        fixed.setLength(0);
+        DecimalText.appendFixed(fixed, value, decimals);
+        int length = fixed.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) fixed.charAt(i));
+        }
+        return this;
+    }
+    
+    /**
+     * Write an amount in paise exactly, as rupees with two decimals
+     */
+    ChannelTextWriter writeMoney(long paise) throws IOException {
+        if (paise == Long.MIN_VALUE) {
+            return write(Money.format(paise));
+        }
+        long magnitude = Math.abs(paise);
+        if (paise < 0) {
+            write((byte) '-');
+        }
+        write(magnitude / Money.SCALE);
+        ensure(3);
+        long fraction = magnitude % Money.SCALE;
+        buffer.put((byte) '.');
+        buffer.put((byte) ('0' + fraction / 10));
+        buffer.put((byte) ('0' + fraction % 10));
+        return this;
+    }
+    
+    /**
+     * Write epoch milliseconds as an ISO-8601 UTC instant, e.g. 2024-01-31T09:15:00.000Z
+     */
+    ChannelTextWriter writeInstant(long epochMillis) throws IOException {
+        long days = Math.floorDiv(epochMillis, 86400000L);
+        long millisOfDay = Math.floorMod(epochMillis, 86400000L);
+        
+        // Civil date from day count (proleptic Gregorian), H. Hinnant's algorithm
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        
+        ensure(24);
+        padded(year, 4).write((byte) '-');
+        padded(month, 2).write((byte) '-');
+        padded(day, 2).write((byte) 'T');
+        padded(millisOfDay / 3600000, 2).write((byte) ':');
+        padded(millisOfDay / 60000 % 60, 2).write((byte) ':');
+        padded(millisOfDay / 1000 % 60, 2).write((byte) '.');
+        padded(millisOfDay % 1000, 3).write((byte) 'Z');
+        return this;
+    }
+    
+    private ChannelTextWriter padded(long value, int width) throws IOException {
+        for (long p = DecimalText.POWERS_OF_TEN[width - 1]; p > 1 && value < p; p /= 10) {
+            write((byte) '0');
+        }
+        return write(value);
+    }
+    
+    /**
+     * Number of bytes written to the channel so far, buffered bytes included
+     */
+    long position() throws IOException {
+        return channel.position() + buffer.position();
+    }
+    
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.tatanav;
+
+/**
+ * Decimal Text - Fixed-point number formatting without String.format
+ * Used on the bulk output paths where formatting millions of values matters
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class DecimalText {
+    
+    static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L
+    };
+    
+    private DecimalText() {
+    }
+    
+    /**
+     * Append value rounded half-up to the given number of decimals (0-8).
+     * The one fixed-point formatter: ChannelTextWriter.writeFixed goes
+     * through it too, so text and file output always round alike.
+     */
+    static StringBuilder appendFixed(StringBuilder out, double value, int decimals) {
+        long scale = POWERS_OF_TEN[decimals];
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= Long.MAX_VALUE / scale) {
+            // Outside the range a scaled long can hold; fall back to the JDK
+            return out.append(value);
+        }
+        
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            out.append('-');
+        }
+        
+        out.append(scaled / scale);
+        if (decimals > 0) {
+            out.append('.');
+            long fraction = scaled % scale;
+            for (long p = scale / 10; p > 0; p /= 10) {
+                out.append((char) ('0' + (fraction / p) % 10));
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,76 @@
+package com.tatanav;
+
+/**
+ * Downsampler - Largest-Triangle-Three-Buckets reduction of chart series
+ * Picks the points that best preserve the visual shape of a series, so
+ * the chart draws about one point per pixel however long the series is
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class Downsampler {
+    
+    private Downsampler() {
+    }
+    
+    /**
+     * Write the logical indexes of up to threshold representative points of
+     * the series into out (ascending) and return how many were written.
+     * Series no longer than threshold are passed through unchanged.
+     */
+    static int lttb(NavSeries series, int threshold, int[] out) {
+        int n = series.size();
+        if (threshold >= n || threshold < 3) {
+            int count = Math.min(n, out.length);
+            for (int i = 0; i < count; i++) {
+                out[i] = i;
+            }
+            return count;
+        }
+        
+        double every = (double) (n - 2) / (threshold - 2);
+        int selected = 0;
+        int a = 0;
+        out[selected++] = a;
+        
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket is the third triangle corner
+            int nextStart = (int) Math.floor((bucket + 1) * every) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgX += j;
+                avgY += series.get(j);
+            }
+            int nextCount = nextEnd - nextStart;
+            if (nextCount > 0) {
+                avgX /= nextCount;
+                avgY /= nextCount;
+            } else {
+                avgX = n - 1;
+                avgY = series.get(n - 1);
+            }
+            
+            int start = (int) Math.floor(bucket * every) + 1;
+            int end = (int) Math.floor((bucket + 1) * every) + 1;
+            double ax = a;
+            double ay = series.get(a);
+            double maxArea = -1;
+            int chosen = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((ax - avgX) * (series.get(j) - ay) - (ax - j) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = j;
+                }
+            }
+            
+            out[selected++] = chosen;
+            a = chosen;
+        }
+        
+        out[selected++] = n - 1;
+        return selected;
+    }
+}
@@ -0,0 +1,177 @@
+package com.tatanav;
+
+import java.awt.EventQueue;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * EDT Watchdog - Detects and records Event Dispatch Thread stalls
+ * A daemon thread posts a probe event to the EDT every PROBE_MILLIS and
+ * times how long it takes to run; the delay goes into the EDT probe
+ * histogram of the Metrics. When a probe has waited longer than the
+ * threshold, the EDT's stack is captured and written to the stall log,
+ * and captured again every further threshold while the stall lasts, so
+ * the log shows where the EDT was stuck and for how long.
+ *
+ * The log is rotated when it grows past MAX_LOG_BYTES, keeping
+ * LOG_GENERATIONS older files as name.1, name.2, ...
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class EdtWatchdog {
+    
+    private static final long PROBE_MILLIS = 100;
+    private static final long POLL_MILLIS = 20;
+    private static final int MAX_SAMPLES_PER_STALL = 10;
+    private static final long MAX_LOG_BYTES = 1024 * 1024;
+    private static final int LOG_GENERATIONS = 3;
+    
+    private final long thresholdNanos;
+    private final Path logPath;
+    private final Metrics metrics;
+    private final Consumer<String> onStall;
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    
+    // Written by the probe on the EDT, read by the watchdog
+    private volatile long answeredAt;
+    private volatile Thread edt;
+    private final Runnable probe = () -> {
+        edt = Thread.currentThread();
+        answeredAt = System.nanoTime();
+    };
+    
+    private volatile boolean running;
+    private Thread thread;
+    
+    /**
+     * onStall is invoked on the EDT with a message once a stall ends
+     */
+    EdtWatchdog(long thresholdMillis, Path logPath, Metrics metrics, Consumer<String> onStall) {
+        if (thresholdMillis <= 0) {
+            throw new IllegalArgumentException("Stall threshold must be positive: " + thresholdMillis);
+        }
+        this.thresholdNanos = thresholdMillis * 1000000;
+        this.logPath = logPath;
+        this.metrics = metrics;
+        this.onStall = onStall;
+    }
+    
+    void start() {
+        running = true;
+        thread = new Thread(this::watch, "nav-edt-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+    
+    private void watch() {
+        try {
+            while (running) {
+                long posted = System.nanoTime();
+                answeredAt = 0;
+                EventQueue.invokeLater(probe);
+                
+                int samples = 0;
+                long nextSample = posted + thresholdNanos;
+                while (running && answeredAt == 0) {
+                    Thread.sleep(POLL_MILLIS);
+                    long now = System.nanoTime();
+                    if (now >= nextSample && samples < MAX_SAMPLES_PER_STALL) {
+                        recordSample(now - posted, ++samples);
+                        nextSample += thresholdNanos;
+                    }
+                }
+                if (!running) {
+                    break;
+                }
+                
+                long delay = answeredAt - posted;
+                metrics.histogram(Metrics.Stage.EDT_PROBE).record(delay);
+                if (samples > 0) {
+                    stallEnded(delay);
+                }
+                Thread.sleep(Math.max(0, PROBE_MILLIS - (System.nanoTime() - posted) / 1000000));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Log the EDT's stack while it is still blocked
+     */
+    private void recordSample(long blockedNanos, int sample) {
+        Thread target = edt;
+        StringBuilder entry = new StringBuilder(2048);
+        entry.append(timeFormat.format(new Date())).append(" EDT blocked for ")
+            .append(Metrics.formatNanos(blockedNanos)).append(" (sample ").append(sample).append(")\n");
+        if (target == null) {
+            entry.append("  EDT has not run a probe yet; no stack available\n");
+        } else {
+            entry.append("  \"").append(target.getName()).append("\" ").append(target.getState()).append('\n');
+            for (StackTraceElement frame : target.getStackTrace()) {
+                entry.append("    at ").append(frame).append('\n');
+            }
+        }
+        append(entry.append('\n'));
+    }
+    
+    private void stallEnded(long blockedNanos) {
+        metrics.stallDetected();
+        append(new StringBuilder(128).append(timeFormat.format(new Date()))
+            .append(" EDT responsive again after ").append(Metrics.formatNanos(blockedNanos)).append("\n\n"));
+        String message = "UI was unresponsive for " + Metrics.formatNanos(blockedNanos)
+            + "; stack saved to " + logPath.getFileName();
+        SwingUtilities.invokeLater(() -> onStall.accept(message));
+    }
+    
+    private void append(CharSequence entry) {
+        try {
+            Files.createDirectories(logPath.toAbsolutePath().getParent());
+            if (Files.exists(logPath) && Files.size(logPath) + entry.length() > MAX_LOG_BYTES) {
+                rotate();
+            }
+            try (Writer writer = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                writer.append(entry);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write EDT stall log: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Shift name.1 to name.2 and so on, dropping the oldest, then move the
+     * current log to name.1
+     */
+    private void rotate() throws IOException {
+        Files.deleteIfExists(generation(LOG_GENERATIONS));
+        for (int i = LOG_GENERATIONS - 1; i >= 1; i--) {
+            Path older = generation(i);
+            if (Files.exists(older)) {
+                Files.move(older, generation(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(logPath, generation(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private Path generation(int index) {
+        return logPath.resolveSibling(logPath.getFileName() + "." + index);
+    }
+}
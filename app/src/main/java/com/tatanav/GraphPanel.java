@@ -0,0 +1,615 @@
+package com.tatanav;
+
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.swing.*;
+
+/**
+ * Enhanced Graph Panel with better visualization
+ * Long series are reduced with LTTB to about one point per pixel and the
+ * value range is tracked incrementally, so repaint cost depends on the
+ * panel size rather than on the amount of history. The static chrome and
+ * the series are rendered into cached image layers that are only redrawn
+ * on resize or when the data changes.
+ *
+ * In candlestick mode the panel draws OHLC bars of one symbol instead of
+ * the raw series, so its cost depends on the number of bars on screen.
+ * In comparison mode it draws the NAVs of several symbols, each in its own
+ * colour, against a shared scale or each against its own range. Every line
+ * is stroked as one Path2D of the downsampled points.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+class GraphPanel extends JPanel {
+    private static final Color BACKGROUND_TOP = new Color(240, 248, 255);
+    private static final Color BORDER_COLOR = new Color(200, 200, 200);
+    private static final Color GRID_COLOR = new Color(230, 230, 230);
+    private static final Color AREA_TOP = new Color(70, 130, 180, 50);
+    private static final Color AREA_BOTTOM = new Color(70, 130, 180, 10);
+    private static final Color POINT_SHADOW = new Color(0, 0, 0, 50);
+    private static final Color LEGEND_BACKGROUND = new Color(255, 255, 255, 210);
+    private static final Font EMPTY_FONT = new Font("Arial", Font.ITALIC, 16);
+    private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 10);
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final BasicStroke BORDER_STROKE = new BasicStroke(1);
+    private static final BasicStroke GRID_STROKE = new BasicStroke(0.5f);
+    private static final BasicStroke AXIS_STROKE = new BasicStroke(2);
+    private static final BasicStroke LINE_STROKE = new BasicStroke(3, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final BasicStroke POINT_STROKE = new BasicStroke(2);
+    private static final BasicStroke WICK_STROKE = new BasicStroke(1);
+    private static final BasicStroke SERIES_STROKE = new BasicStroke(2, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final int MIN_CANDLE_SPACING = 4;
+    private static final Color[] SERIES_COLORS = {
+        new Color(31, 119, 180), new Color(255, 127, 14), new Color(44, 160, 44), new Color(214, 39, 40),
+        new Color(148, 103, 189), new Color(140, 86, 75), new Color(227, 119, 194), new Color(127, 127, 127),
+        new Color(188, 189, 34), new Color(23, 190, 207), new Color(174, 199, 232), new Color(255, 187, 120),
+        new Color(152, 223, 138), new Color(255, 152, 150), new Color(197, 176, 213), new Color(196, 156, 148),
+        new Color(247, 182, 210), new Color(199, 199, 199), new Color(219, 219, 141), new Color(158, 218, 229)
+    };
+    
+    private final NavSeries data;
+    private Metrics metrics;
+    private boolean showGrid = true;
+    private boolean showPoints = true;
+    
+    // Candlestick mode; null bars means the line chart is shown
+    private OhlcSeries bars;
+    private String barsSymbol;
+    
+    // Comparison mode; null means a single series is shown
+    private NavSeries[] compared;
+    private String[] comparedSymbols;
+    private boolean sharedScale;
+    private int[] comparedSampled = new int[0];
+    
+    // Reused for every line drawn
+    private final Path2D.Float path = new Path2D.Float();
+    
+    // Downsampled view of the series, rebuilt only when data or width change
+    private int[] sampled = new int[0];
+    private int sampledCount;
+    private long sampledVersion = -1;
+    private int sampledThreshold = -1;
+    
+    // Cached render layers, invalidated on resize or data change
+    private BufferedImage staticLayer;
+    private BufferedImage seriesLayer;
+    private long seriesLayerVersion = -1;
+    private int layerWidth;
+    private int layerHeight;
+    private double layerScale;
+    
+    public GraphPanel(int capacity) {
+        data = new NavSeries(capacity);
+        setBackground(Color.WHITE);
+        setPreferredSize(new Dimension(400, 300));
+    }
+    
+    /**
+     * Time every repaint into the given metrics, or stop timing if null
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    public void updateData(List<Double> newData) {
+        data.clear();
+        for (Double value : newData) {
+            data.append(value);
+        }
+        repaint();
+    }
+    
+    /**
+     * Add one value to the end of the series. The panel is not repainted,
+     * so a run of appends can be shown with a single repaint().
+     */
+    public void append(double value) {
+        data.append(value);
+    }
+    
+    public void clear() {
+        data.clear();
+        repaint();
+    }
+    
+    /**
+     * Draw the given bars of a symbol as candlesticks; they are read live,
+     * so later updates to the series show on the next repaint
+     */
+    public void showCandles(OhlcSeries bars, String symbol) {
+        compared = null;
+        comparedSymbols = null;
+        if (bars != this.bars) {
+            this.bars = bars;
+            this.barsSymbol = symbol;
+            seriesLayer = null;
+        }
+        repaint();
+    }
+    
+    /**
+     * Go back to the line chart of every calculation
+     */
+    public void showLine() {
+        if (bars != null || compared != null) {
+            bars = null;
+            barsSymbol = null;
+            compared = null;
+            comparedSymbols = null;
+            seriesLayer = null;
+        }
+        repaint();
+    }
+    
+    /**
+     * Draw the series of several symbols on one chart, either on a shared
+     * NAV scale or each stretched over its own range. The series are read
+     * live, so later appends show on the next repaint.
+     */
+    public void showComparison(String[] symbols, NavSeries[] series, boolean sharedScale) {
+        if (!Arrays.equals(series, compared) || !Arrays.equals(symbols, comparedSymbols)
+                || sharedScale != this.sharedScale) {
+            bars = null;
+            barsSymbol = null;
+            compared = series.clone();
+            comparedSymbols = symbols.clone();
+            this.sharedScale = sharedScale;
+            seriesLayer = null;
+        }
+        repaint();
+    }
+    
+    private boolean isShowingEmpty() {
+        if (compared != null) {
+            for (NavSeries series : compared) {
+                if (!series.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return bars != null ? bars.isEmpty() : data.isEmpty();
+    }
+    
+    private long dataVersion() {
+        if (compared != null) {
+            // Versions only grow, so the sum changes whenever any series does
+            long version = 0;
+            for (NavSeries series : compared) {
+                version += series.version();
+            }
+            return version;
+        }
+        return bars != null ? bars.version() : data.version();
+    }
+    
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        super.paintComponent(g);
+        paintChart(g);
+        if (metrics != null) {
+            metrics.record(Metrics.Stage.REPAINT, start);
+            metrics.repainted();
+        }
+    }
+    
+    private void paintChart(Graphics g) {
+        if (isShowingEmpty()) {
+            drawEmptyState(g);
+            return;
+        }
+        
+        Graphics2D g2d = (Graphics2D) g;
+        double scale = g2d.getTransform().getScaleX();
+        int panelWidth = getWidth();
+        int panelHeight = getHeight();
+        if (panelWidth != layerWidth || panelHeight != layerHeight || scale != layerScale) {
+            // Resized or moved to a screen with a different scale
+            staticLayer = null;
+            seriesLayer = null;
+            layerWidth = panelWidth;
+            layerHeight = panelHeight;
+            layerScale = scale;
+        }
+        
+        if (staticLayer == null) {
+            staticLayer = renderLayer(staticLayer, this::renderStaticLayer);
+        }
+        if (seriesLayer == null || seriesLayerVersion != dataVersion()) {
+            seriesLayer = renderLayer(seriesLayer, bars != null ? this::renderCandleLayer
+                : compared != null ? this::renderComparisonLayer : this::renderSeriesLayer);
+            seriesLayerVersion = dataVersion();
+        }
+        
+        g2d.drawImage(staticLayer, 0, 0, panelWidth, panelHeight, null);
+        g2d.drawImage(seriesLayer, 0, 0, panelWidth, panelHeight, null);
+    }
+    
+    /**
+     * Paint a layer into a transparent image at device resolution, reusing
+     * the previous image when it still has the right size
+     */
+    private BufferedImage renderLayer(BufferedImage image, Consumer<Graphics2D> painter) {
+        int deviceWidth = Math.max(1, (int) Math.ceil(layerWidth * layerScale));
+        int deviceHeight = Math.max(1, (int) Math.ceil(layerHeight * layerScale));
+        if (image == null || image.getWidth() != deviceWidth || image.getHeight() != deviceHeight) {
+            GraphicsConfiguration config = getGraphicsConfiguration();
+            image = config != null
+                ? config.createCompatibleImage(deviceWidth, deviceHeight, Transparency.TRANSLUCENT)
+                : new BufferedImage(deviceWidth, deviceHeight, BufferedImage.TYPE_INT_ARGB);
+        }
+        
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, deviceWidth, deviceHeight);
+            g2d.setComposite(AlphaComposite.SrcOver);
+            g2d.scale(layerScale, layerScale);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            painter.accept(g2d);
+        } finally {
+            g2d.dispose();
+        }
+        return image;
+    }
+    
+    /**
+     * Background, border, grid and axes; depends only on the panel size
+     */
+    private void renderStaticLayer(Graphics2D g2d) {
+        int width = layerWidth - 60;
+        int height = layerHeight - 60;
+        int startX = 40;
+        int startY = 30;
+        
+        // Draw background gradient
+        GradientPaint gradient = new GradientPaint(0, 0, BACKGROUND_TOP, 0, height, Color.WHITE);
+        g2d.setPaint(gradient);
+        g2d.fillRect(startX, startY, width, height);
+        
+        // Draw border
+        g2d.setColor(BORDER_COLOR);
+        g2d.setStroke(BORDER_STROKE);
+        g2d.drawRect(startX, startY, width, height);
+        
+        // Draw grid
+        if (showGrid) {
+            drawGrid(g2d, startX, startY, width, height);
+        }
+        
+        // Draw axes
+        drawAxes(g2d, startX, startY, width, height);
+    }
+    
+    /**
+     * Trend area, line, points and labels; depends on size and data
+     */
+    private void renderSeriesLayer(Graphics2D g2d) {
+        int width = layerWidth - 60;
+        int height = layerHeight - 60;
+        int startX = 40;
+        int startY = 30;
+        
+        if (data.size() < 2) return;
+        
+        // Data range is maintained incrementally by the series
+        double min = data.min();
+        double max = data.max();
+        double range = max - min;
+        if (range == 0) range = 1;
+        
+        downsample(width);
+        tracePath(data, sampled, sampledCount, startX, startY, width, height, min, range);
+        
+        // Draw trend area
+        drawTrendArea(g2d, startX, startY, width, height);
+        
+        // Draw line graph
+        g2d.setColor(TataNavCalculator.PRIMARY_COLOR);
+        g2d.setStroke(LINE_STROKE);
+        g2d.draw(path);
+        
+        // Draw data points, unless they are too dense to tell apart
+        if (showPoints && sampledCount <= width / 8) {
+            drawDataPoints(g2d, startX, startY, width, height, min, range);
+        }
+        
+        // Draw labels
+        drawLabels(g2d, startX, startY, width, height, min, max, "Start",
+            data.size() > 1 ? "Latest" : null, "NAV Trend");
+    }
+    
+    /**
+     * One line per compared symbol plus a legend
+     */
+    private void renderComparisonLayer(Graphics2D g2d) {
+        int width = layerWidth - 60;
+        int height = layerHeight - 60;
+        int startX = 40;
+        int startY = 30;
+        
+        double sharedMin = Double.POSITIVE_INFINITY;
+        double sharedMax = Double.NEGATIVE_INFINITY;
+        for (NavSeries series : compared) {
+            if (!series.isEmpty()) {
+                sharedMin = Math.min(sharedMin, series.min());
+                sharedMax = Math.max(sharedMax, series.max());
+            }
+        }
+        
+        int threshold = Math.max(3, width);
+        if (comparedSampled.length < threshold) {
+            comparedSampled = new int[threshold];
+        }
+        g2d.setStroke(SERIES_STROKE);
+        for (int s = 0; s < compared.length; s++) {
+            NavSeries series = compared[s];
+            if (series.size() < 2) {
+                continue;
+            }
+            double min = sharedScale ? sharedMin : series.min();
+            double range = (sharedScale ? sharedMax : series.max()) - min;
+            if (range == 0) range = 1;
+            
+            int count = Downsampler.lttb(series, threshold, comparedSampled);
+            tracePath(series, comparedSampled, count, startX, startY, width, height, min, range);
+            g2d.setColor(SERIES_COLORS[s % SERIES_COLORS.length]);
+            g2d.draw(path);
+        }
+        
+        drawLegend(g2d, startX, startY, width);
+        if (sharedScale) {
+            drawLabels(g2d, startX, startY, width, height, sharedMin, sharedMax, "Start", "Latest",
+                "NAV Comparison");
+        } else {
+            drawLabels(g2d, startX, startY, width, height, 0, 100, "Start", "Latest",
+                "NAV Comparison (% of each range)");
+        }
+    }
+    
+    /**
+     * Colour key of the compared symbols, wrapped to the plot width; with
+     * independent scales each entry also shows the range it is drawn over
+     */
+    private void drawLegend(Graphics2D g2d, int startX, int startY, int width) {
+        g2d.setFont(LABEL_FONT);
+        FontMetrics fm = g2d.getFontMetrics();
+        String[] labels = new String[compared.length];
+        int[] xs = new int[compared.length];
+        int[] ys = new int[compared.length];
+        int x = startX + 8;
+        int y = startY + 6;
+        int right = x;
+        for (int s = 0; s < compared.length; s++) {
+            NavSeries series = compared[s];
+            labels[s] = sharedScale || series.isEmpty() ? comparedSymbols[s]
+                : String.format("%s %.1f-%.1f", comparedSymbols[s], series.min(), series.max());
+            int entryWidth = 14 + fm.stringWidth(labels[s]);
+            if (x + entryWidth > startX + width - 8 && x > startX + 8) {
+                x = startX + 8;
+                y += fm.getHeight();
+            }
+            xs[s] = x;
+            ys[s] = y;
+            right = Math.max(right, x + entryWidth);
+            x += entryWidth + 12;
+        }
+        
+        // Backing so the key stays readable over the lines
+        g2d.setColor(LEGEND_BACKGROUND);
+        g2d.fillRect(startX + 4, startY + 3, right - startX, y + fm.getHeight() - startY);
+        for (int s = 0; s < compared.length; s++) {
+            g2d.setColor(SERIES_COLORS[s % SERIES_COLORS.length]);
+            g2d.fillRect(xs[s], ys[s] + 2, 10, 8);
+            g2d.setColor(Color.BLACK);
+            g2d.drawString(labels[s], xs[s] + 14, ys[s] + fm.getAscent());
+        }
+    }
+    
+    /**
+     * The newest bars that fit the width, drawn as candlesticks
+     */
+    private void renderCandleLayer(Graphics2D g2d) {
+        int width = layerWidth - 60;
+        int height = layerHeight - 60;
+        int startX = 40;
+        int startY = 30;
+        
+        int count = Math.min(bars.size(), Math.max(1, width / MIN_CANDLE_SPACING));
+        int first = bars.size() - count;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = first; i < bars.size(); i++) {
+            min = Math.min(min, bars.low(i));
+            max = Math.max(max, bars.high(i));
+        }
+        double range = max - min;
+        if (range == 0) range = 1;
+        
+        double spacing = (double) width / count;
+        int bodyWidth = Math.max(1, (int) (spacing * 0.6));
+        g2d.setStroke(WICK_STROKE);
+        for (int i = 0; i < count; i++) {
+            int bar = first + i;
+            double open = bars.open(bar);
+            double close = bars.close(bar);
+            int x = startX + (int) (spacing * i + spacing / 2);
+            int yHigh = yFor(bars.high(bar), startY, height, min, range);
+            int yLow = yFor(bars.low(bar), startY, height, min, range);
+            int yOpen = yFor(open, startY, height, min, range);
+            int yClose = yFor(close, startY, height, min, range);
+            
+            g2d.setColor(close >= open ? TataNavCalculator.SUCCESS_COLOR : TataNavCalculator.ERROR_COLOR);
+            g2d.drawLine(x, yHigh, x, yLow);
+            g2d.fillRect(x - bodyWidth / 2, Math.min(yOpen, yClose), bodyWidth,
+                Math.max(1, Math.abs(yClose - yOpen)));
+        }
+        
+        SimpleDateFormat timeFormat = new SimpleDateFormat(
+            bars.interval() == BarInterval.ONE_DAY ? "dd MMM" : "HH:mm");
+        drawLabels(g2d, startX, startY, width, height, min, max,
+            timeFormat.format(new Date(bars.start(first))),
+            count > 1 ? timeFormat.format(new Date(bars.start(bars.size() - 1))) : null,
+            barsSymbol + " " + bars.interval().label);
+    }
+    
+    /**
+     * Reduce the series to roughly one point per horizontal pixel
+     */
+    private void downsample(int width) {
+        int threshold = Math.max(3, width);
+        if (sampledVersion == data.version() && sampledThreshold == threshold) {
+            return;
+        }
+        if (sampled.length < Math.min(threshold, data.size())) {
+            sampled = new int[Math.min(threshold, data.size())];
+        }
+        sampledCount = Downsampler.lttb(data, threshold, sampled);
+        sampledVersion = data.version();
+        sampledThreshold = threshold;
+    }
+    
+    private int xFor(int index, int size, int startX, int width) {
+        return startX + (int) ((long) width * index / (size - 1));
+    }
+    
+    /**
+     * Rebuild the shared path through the given points of a series,
+     * stretched over the full width
+     */
+    private void tracePath(NavSeries series, int[] indexes, int count, int startX, int startY,
+                           int width, int height, double min, double range) {
+        path.reset();
+        for (int i = 0; i < count; i++) {
+            int index = indexes[i];
+            int x = xFor(index, series.size(), startX, width);
+            int y = yFor(series.get(index), startY, height, min, range);
+            if (i == 0) {
+                path.moveTo(x, y);
+            } else {
+                path.lineTo(x, y);
+            }
+        }
+    }
+    
+    private int yFor(double value, int startY, int height, double min, double range) {
+        return startY + height - (int) ((value - min) / range * height);
+    }
+    
+    private void drawEmptyState(Graphics g) {
+        g.setColor(Color.GRAY);
+        g.setFont(EMPTY_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        String message = "No data to display";
+        int x = (getWidth() - fm.stringWidth(message)) / 2;
+        int y = getHeight() / 2;
+        g.drawString(message, x, y);
+    }
+    
+    private void drawGrid(Graphics2D g2d, int startX, int startY, int width, int height) {
+        g2d.setColor(GRID_COLOR);
+        g2d.setStroke(GRID_STROKE);
+        
+        // Vertical grid lines
+        for (int i = 1; i < 10; i++) {
+            int x = startX + (width * i / 10);
+            g2d.drawLine(x, startY, x, startY + height);
+        }
+        
+        // Horizontal grid lines
+        for (int i = 1; i < 10; i++) {
+            int y = startY + (height * i / 10);
+            g2d.drawLine(startX, y, startX + width, y);
+        }
+    }
+    
+    private void drawAxes(Graphics2D g2d, int startX, int startY, int width, int height) {
+        g2d.setColor(Color.BLACK);
+        g2d.setStroke(AXIS_STROKE);
+        g2d.drawLine(startX, startY + height, startX + width, startY + height); // X-axis
+        g2d.drawLine(startX, startY, startX, startY + height); // Y-axis
+    }
+    
+    private void drawTrendArea(Graphics2D g2d, int startX, int startY, int width, int height) {
+        // Close the line down to the X-axis
+        Path2D.Float area = new Path2D.Float(path);
+        area.lineTo(startX + width, startY + height);
+        area.lineTo(startX, startY + height);
+        area.closePath();
+        
+        // Fill area with gradient
+        GradientPaint areaGradient = new GradientPaint(0, startY, AREA_TOP,
+            0, startY + height, AREA_BOTTOM);
+        g2d.setPaint(areaGradient);
+        g2d.fill(area);
+    }
+    
+    /**
+     * Marker at each sampled point; each layer of the markers is filled or
+     * stroked as one shape, shadows first
+     */
+    private void drawDataPoints(Graphics2D g2d, int startX, int startY, int width, int height,
+                               double min, double range) {
+        Path2D.Float shadows = new Path2D.Float();
+        Path2D.Float rings = new Path2D.Float();
+        Path2D.Float dots = new Path2D.Float();
+        Ellipse2D.Float oval = new Ellipse2D.Float();
+        for (int i = 0; i < sampledCount; i++) {
+            int x = xFor(sampled[i], data.size(), startX, width);
+            int y = yFor(data.get(sampled[i]), startY, height, min, range);
+            oval.setFrame(x - 4, y - 3, 8, 8);
+            shadows.append(oval, false);
+            oval.setFrame(x - 4, y - 4, 8, 8);
+            rings.append(oval, false);
+            oval.setFrame(x - 2, y - 2, 4, 4);
+            dots.append(oval, false);
+        }
+        
+        // Draw point shadows
+        g2d.setColor(POINT_SHADOW);
+        g2d.fill(shadows);
+        
+        // Draw points
+        g2d.setColor(Color.WHITE);
+        g2d.fill(rings);
+        g2d.setColor(TataNavCalculator.ERROR_COLOR);
+        g2d.setStroke(POINT_STROKE);
+        g2d.draw(rings);
+        g2d.fill(dots);
+    }
+    
+    private void drawLabels(Graphics2D g2d, int startX, int startY, int width, int height,
+                           double min, double max, String startLabel, String endLabel, String title) {
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(LABEL_FONT);
+        
+        // Y-axis labels
+        g2d.drawString(String.format("%.1f", max), 5, startY + 5);
+        g2d.drawString(String.format("%.1f", (max + min) / 2), 5, startY + height / 2);
+        g2d.drawString(String.format("%.1f", min), 5, startY + height);
+        
+        // X-axis labels
+        g2d.drawString(startLabel, startX, startY + height + 15);
+        if (endLabel != null) {
+            FontMetrics fm = g2d.getFontMetrics();
+            g2d.drawString(endLabel, startX + width - Math.max(20, fm.stringWidth(endLabel)),
+                startY + height + 15);
+        }
+        
+        // Title
+        g2d.setFont(TITLE_FONT);
+        g2d.drawString(title, startX + width / 2 - 30, startY - 10);
+    }
+}
@@ -0,0 +1,450 @@
+package com.tatanav;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
+
+/**
+ * History Dialog - Non-modal, sortable and filterable view of the history
+ * Opens on the records in arrival order immediately and indexes them in
+ * the background; new calculations re-index at most twice a second while
+ * the dialog is showing. A second tab shows the running per-symbol
+ * statistics, and a third answers time-range and top/bottom-K queries
+ * from a TimeRangeIndex built the same way.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+class HistoryDialog extends JDialog {
+    
+    private static final int REFRESH_MILLIS = 500;
+    private static final String[] QUERY_KINDS = {"Top", "Bottom", "All"};
+    private static final String[] DATE_TIME_PATTERNS = {"yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm", "yyyy-MM-dd"};
+    private static final String[] TIME_PATTERNS = {"HH:mm:ss", "HH:mm"};
+    
+    private final HistoryStore history;
+    private final SymbolStatsIndex symbolStats;
+    private final HistoryTableModel model;
+    private final SymbolStatsTableModel statsModel = new SymbolStatsTableModel();
+    private final JTable table;
+    private final JTextField filterField;
+    private final JLabel countLabel;
+    private final Timer refreshTimer;
+    private final HistoryTableModel queryModel;
+    private final JTextField querySymbolField = new JTextField(8);
+    private final JTextField queryFromField = new JTextField(12);
+    private final JTextField queryToField = new JTextField(12);
+    private final JComboBox<String> queryKindBox = new JComboBox<>(QUERY_KINDS);
+    private final JSpinner queryCountSpinner = new JSpinner(new SpinnerNumberModel(10, 1, 1000000, 1));
+    private final JComboBox<TimeRangeIndex.Measure> queryMeasureBox =
+        new JComboBox<>(TimeRangeIndex.Measure.values());
+    private final JLabel queryLabel = new JLabel(" ");
+    
+    private SwingWorker<HistoryTableModel.Index, Void> indexer;
+    private boolean dirty = true;
+    private long statsVersion = -1;
+    private SwingWorker<TimeRangeIndex, Void> timeIndexer;
+    private TimeRangeIndex timeIndex;
+    private boolean timeIndexDirty = true;
+    
+    HistoryDialog(Frame owner, HistoryStore history, SymbolStatsIndex symbolStats) {
+        super(owner, "Calculation History", false);
+        this.history = history;
+        this.symbolStats = symbolStats;
+        this.model = new HistoryTableModel(history);
+        this.queryModel = new HistoryTableModel(history);
+        
+        table = new JTable(model);
+        table.setFont(new Font("Consolas", Font.PLAIN, 12));
+        table.setRowHeight(20);
+        table.setFillsViewportHeight(true);
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.setDefaultRenderer(Double.class, new DecimalRenderer());
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                if (column >= 0 && HistoryTableModel.isSortable(column)) {
+                    model.sortBy(column);
+                    updateHeaders();
+                    updateCount();
+                }
+            }
+        });
+        
+        filterField = new JTextField(12);
+        filterField.setToolTipText("Show symbols starting with this text");
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                applyFilter();
+            }
+        });
+        countLabel = new JLabel(" ");
+        
+        JPanel filterPanel = new JPanel(new BorderLayout(8, 0));
+        filterPanel.setBorder(new EmptyBorder(8, 8, 8, 8));
+        JPanel prefixPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 0));
+        prefixPanel.add(new JLabel("Symbol prefix:"));
+        prefixPanel.add(filterField);
+        filterPanel.add(prefixPanel, BorderLayout.WEST);
+        filterPanel.add(countLabel, BorderLayout.EAST);
+        
+        JPanel records = new JPanel(new BorderLayout());
+        records.add(filterPanel, BorderLayout.NORTH);
+        records.add(new JScrollPane(table), BorderLayout.CENTER);
+        
+        JTable statsTable = new JTable(statsModel);
+        statsTable.setFont(new Font("Consolas", Font.PLAIN, 12));
+        statsTable.setRowHeight(20);
+        statsTable.setFillsViewportHeight(true);
+        statsTable.setAutoCreateRowSorter(true);
+        statsTable.setDefaultRenderer(Double.class, new DecimalRenderer());
+        
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Records", records);
+        tabs.addTab("By Symbol", new JScrollPane(statsTable));
+        tabs.addTab("Query", createQueryPanel());
+        setContentPane(tabs);
+        setDefaultCloseOperation(WindowConstants.HIDE_ON_CLOSE);
+        setSize(760, 460);
+        setLocationRelativeTo(owner);
+        
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> {
+            if (isVisible()) {
+                if (dirty) {
+                    reindex();
+                }
+                refreshStats();
+            }
+        });
+        refreshTimer.start();
+        updateHeaders();
+    }
+    
+    /**
+     * Time range and ranking controls over a table of the matching records
+     */
+    private JPanel createQueryPanel() {
+        querySymbolField.setToolTipText("Symbol to query; empty for all symbols");
+        String timeFormats = "yyyy-MM-dd [HH:mm[:ss]] or HH:mm[:ss] today; empty for no limit";
+        queryFromField.setToolTipText("From (inclusive): " + timeFormats);
+        queryToField.setToolTipText("To (exclusive): " + timeFormats);
+        queryFromField.setText(new SimpleDateFormat(DATE_TIME_PATTERNS[2]).format(new Date()));
+        queryKindBox.addActionListener(e -> {
+            boolean ranked = queryKindBox.getSelectedIndex() != 2;
+            queryCountSpinner.setEnabled(ranked);
+            queryMeasureBox.setEnabled(ranked);
+        });
+        queryMeasureBox.setSelectedItem(TimeRangeIndex.Measure.PROFIT_LOSS_PERCENT);
+        JButton runButton = new JButton("Run");
+        runButton.addActionListener(e -> runQuery());
+        querySymbolField.addActionListener(e -> runQuery());
+        queryFromField.addActionListener(e -> runQuery());
+        queryToField.addActionListener(e -> runQuery());
+        
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 0));
+        controls.setBorder(new EmptyBorder(8, 8, 8, 8));
+        controls.add(new JLabel("Symbol:"));
+        controls.add(querySymbolField);
+        controls.add(new JLabel("From:"));
+        controls.add(queryFromField);
+        controls.add(new JLabel("To:"));
+        controls.add(queryToField);
+        controls.add(queryKindBox);
+        controls.add(queryCountSpinner);
+        controls.add(new JLabel("by"));
+        controls.add(queryMeasureBox);
+        controls.add(runButton);
+        
+        JTable queryTable = new JTable(queryModel);
+        queryTable.setFont(new Font("Consolas", Font.PLAIN, 12));
+        queryTable.setRowHeight(20);
+        queryTable.setFillsViewportHeight(true);
+        queryTable.getTableHeader().setReorderingAllowed(false);
+        queryTable.setDefaultRenderer(Double.class, new DecimalRenderer());
+        queryLabel.setBorder(new EmptyBorder(4, 8, 4, 8));
+        
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(controls, BorderLayout.NORTH);
+        panel.add(new JScrollPane(queryTable), BorderLayout.CENTER);
+        panel.add(queryLabel, BorderLayout.SOUTH);
+        return panel;
+    }
+    
+    /**
+     * Show the dialog, bringing the view up to date first
+     */
+    void open() {
+        if (dirty) {
+            if (!model.isIndexed()) {
+                model.showArrivalOrder();
+                updateCount();
+            }
+            reindex();
+        }
+        refreshStats();
+        setVisible(true);
+        toFront();
+    }
+    
+    /**
+     * Note that the history changed; the view catches up on the next refresh
+     */
+    void historyChanged() {
+        dirty = true;
+        timeIndexDirty = true;
+    }
+    
+    @Override
+    public void dispose() {
+        refreshTimer.stop();
+        if (indexer != null) {
+            indexer.cancel(true);
+        }
+        if (timeIndexer != null) {
+            timeIndexer.cancel(true);
+        }
+        super.dispose();
+    }
+    
+    /**
+     * Run the query in the controls, first re-indexing in the background
+     * if the history changed since the last index was built
+     */
+    private void runQuery() {
+        if (timeIndex == null || timeIndexDirty) {
+            reindexTimes();
+        } else {
+            showQueryResult();
+        }
+    }
+    
+    /**
+     * Answer the query from the current index; records since are left out
+     */
+    private void showQueryResult() {
+        long from;
+        long to;
+        try {
+            from = parseTime(queryFromField.getText(), false);
+            to = parseTime(queryToField.getText(), true);
+        } catch (ParseException e) {
+            queryLabel.setText(e.getMessage());
+            return;
+        }
+        
+        String symbol = querySymbolField.getText().trim().toUpperCase();
+        int symbolId = symbol.isEmpty() ? -1 : history.symbols().find(symbol);
+        if (symbolId < 0 && !symbol.isEmpty()) {
+            queryModel.showRecords(timeIndex.firstSequence, new int[0]);
+            queryLabel.setText("No calculations for " + symbol);
+            return;
+        }
+        
+        long start = System.nanoTime();
+        int kind = queryKindBox.getSelectedIndex();
+        int[] offsets = kind == 2 ? timeIndex.range(from, to, symbolId)
+            : timeIndex.top((TimeRangeIndex.Measure) queryMeasureBox.getSelectedItem(), kind == 0,
+                (Integer) queryCountSpinner.getValue(), from, to, symbolId);
+        long elapsed = System.nanoTime() - start;
+        queryModel.showRecords(timeIndex.firstSequence, offsets);
+        queryLabel.setText(offsets.length + " records of " + timeIndex.count + " in "
+            + Metrics.formatNanos(elapsed));
+    }
+    
+    private void reindexTimes() {
+        if (timeIndexer != null) {
+            return;
+        }
+        timeIndexDirty = false;
+        long from = history.firstSequence();
+        long to = history.endSequence();
+        queryLabel.setText("Indexing " + (to - from) + " records...");
+        
+        timeIndexer = new SwingWorker<TimeRangeIndex, Void>() {
+            @Override
+            protected TimeRangeIndex doInBackground() {
+                return TimeRangeIndex.build(history, from, to);
+            }
+            
+            @Override
+            protected void done() {
+                timeIndexer = null;
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    timeIndex = get();
+                    showQueryResult();
+                } catch (InterruptedException | ExecutionException ex) {
+                    timeIndexDirty = true;
+                    queryLabel.setText("Indexing failed: " + ex.getMessage());
+                }
+            }
+        };
+        timeIndexer.execute();
+    }
+    
+    /**
+     * Milliseconds for a date and optional time, or a time today. An empty
+     * field is unbounded; a date alone as the end of a range takes in that
+     * whole day.
+     */
+    private static long parseTime(String text, boolean end) throws ParseException {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            return end ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        for (String pattern : DATE_TIME_PATTERNS) {
+            Date date = parse(trimmed, pattern);
+            if (date != null) {
+                Calendar calendar = Calendar.getInstance();
+                calendar.setTime(date);
+                if (end && pattern.equals(DATE_TIME_PATTERNS[2])) {
+                    calendar.add(Calendar.DAY_OF_MONTH, 1);
+                }
+                return calendar.getTimeInMillis();
+            }
+        }
+        for (String pattern : TIME_PATTERNS) {
+            Date time = parse(trimmed, pattern);
+            if (time != null) {
+                Calendar clock = Calendar.getInstance();
+                clock.setTime(time);
+                Calendar today = Calendar.getInstance();
+                today.set(Calendar.HOUR_OF_DAY, clock.get(Calendar.HOUR_OF_DAY));
+                today.set(Calendar.MINUTE, clock.get(Calendar.MINUTE));
+                today.set(Calendar.SECOND, clock.get(Calendar.SECOND));
+                today.set(Calendar.MILLISECOND, 0);
+                return today.getTimeInMillis();
+            }
+        }
+        throw new ParseException("Not a date or time: " + trimmed, 0);
+    }
+    
+    /**
+     * The whole text parsed with a pattern, or null
+     */
+    private static Date parse(String text, String pattern) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setLenient(false);
+        ParsePosition position = new ParsePosition(0);
+        Date date = format.parse(text, position);
+        return position.getIndex() == text.length() ? date : null;
+    }
+    
+    private void reindex() {
+        if (indexer != null) {
+            return;
+        }
+        dirty = false;
+        long from = history.firstSequence();
+        long to = history.endSequence();
+        
+        indexer = new SwingWorker<HistoryTableModel.Index, Void>() {
+            @Override
+            protected HistoryTableModel.Index doInBackground() {
+                return HistoryTableModel.buildIndex(history, from, to);
+            }
+            
+            @Override
+            protected void done() {
+                indexer = null;
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    model.setIndex(get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    dirty = true;
+                }
+                updateCount();
+            }
+        };
+        indexer.execute();
+        updateCount();
+    }
+    
+    private void refreshStats() {
+        long version = symbolStats.version();
+        if (version != statsVersion) {
+            statsVersion = version;
+            statsModel.setStats(symbolStats.snapshot());
+        }
+    }
+    
+    private void applyFilter() {
+        model.setPrefix(filterField.getText());
+        updateCount();
+    }
+    
+    private void updateCount() {
+        StringBuilder text = new StringBuilder();
+        text.append(model.getRowCount()).append(" of ").append(model.recordCount()).append(" records");
+        if (indexer != null) {
+            text.append(" (indexing...)");
+        }
+        countLabel.setText(text.toString());
+    }
+    
+    /**
+     * Mark the sorted column and its direction in the header
+     */
+    private void updateHeaders() {
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            TableColumn column = table.getColumnModel().getColumn(i);
+            int modelColumn = column.getModelIndex();
+            String name = model.getColumnName(modelColumn);
+            if (modelColumn == model.sortColumn()) {
+                name += model.isDescending() ? " ▼" : " ▲";
+            }
+            column.setHeaderValue(name);
+        }
+        table.getTableHeader().repaint();
+    }
+    
+    /**
+     * Right-aligned two-decimal rendering for price and percentage columns
+     */
+    private static class DecimalRenderer extends DefaultTableCellRenderer {
+        private final StringBuilder text = new StringBuilder(24);
+        
+        DecimalRenderer() {
+            setHorizontalAlignment(SwingConstants.RIGHT);
+        }
+        
+        @Override
+        protected void setValue(Object value) {
+            if (value instanceof Double) {
+                text.setLength(0);
+                setText(DecimalText.appendFixed(text, (Double) value, 2).toString());
+            } else {
+                setText("");
+            }
+        }
+    }
+}
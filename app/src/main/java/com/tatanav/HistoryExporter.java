@@ -0,0 +1,288 @@
+package com.tatanav;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * History Exporter - Streams the calculation history to CSV, JSON or XML
+ * Records are pulled from the HistoryStore in fixed-size batches and
+ * written through a ChannelTextWriter, so memory use does not depend on
+ * the number of records exported. Per-symbol statistics are exported in
+ * the same format to a companion file.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class HistoryExporter {
+    
+    private static final int BATCH_SIZE = 8192;
+    
+    /**
+     * Supported text formats
+     */
+    enum Format {
+        CSV("csv"), JSON("json"), XML("xml");
+        
+        final String extension;
+        
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+    
+    private final HistoryStore store;
+    private final Format format;
+    
+    // Escaped symbol bytes, cached per symbol id
+    private byte[][] symbolBytes = new byte[64][];
+    
+    HistoryExporter(HistoryStore store, Format format) {
+        this.store = store;
+        this.format = format;
+    }
+    
+    /**
+     * Export every record present when the export starts and return the
+     * number written. Progress is reported as a percentage (0-100).
+     */
+    long export(Path path, IntConsumer progress) throws IOException {
+        long from = store.firstSequence();
+        long to = store.endSequence();
+        long total = Math.max(1, to - from);
+        long written = 0;
+        int lastPercent = -1;
+        
+        HistoryStore.Batch batch = new HistoryStore.Batch(BATCH_SIZE);
+        try (ChannelTextWriter out = new ChannelTextWriter(path)) {
+            writeHeader(out);
+            
+            while (store.copy(from, to, batch) > 0) {
+                for (int i = 0; i < batch.count; i++) {
+                    writeRecord(out, batch, i, written++ == 0);
+                }
+                from = batch.firstSequence + batch.count;
+                
+                int percent = (int) (100 * (total - (to - from)) / total);
+                if (percent != lastPercent) {
+                    lastPercent = percent;
+                    progress.accept(percent);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IOException("Export cancelled");
+                }
+            }
+            
+            writeFooter(out);
+        }
+        return written;
+    }
+    
+    /**
+     * Write per-symbol statistics and return the number of symbols written
+     */
+    long exportStats(Path path, List<SymbolStatsIndex.Stats> stats) throws IOException {
+        try (ChannelTextWriter out = new ChannelTextWriter(path)) {
+            switch (format) {
+                case CSV:
+                    out.write("stock,count,meanNav,navStdDev,minNav,maxNav,totalProfitLoss,"
+                        + "averageProfitLoss,totalProfitLossPercent,averageProfitLossPercent\n");
+                    break;
+                case JSON:
+                    out.write("[");
+                    break;
+                case XML:
+                    out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<symbolStats>\n");
+                    break;
+            }
+            
+            boolean first = true;
+            for (SymbolStatsIndex.Stats s : stats) {
+                writeStats(out, s, first);
+                first = false;
+            }
+            
+            switch (format) {
+                case JSON:
+                    out.write("\n]\n");
+                    break;
+                case XML:
+                    out.write("</symbolStats>\n");
+                    break;
+                default:
+                    break;
+            }
+        }
+        return stats.size();
+    }
+    
+    /**
+     * Companion file for the statistics of an export, e.g. nav.csv -> nav.stats.csv
+     */
+    static Path statsPath(Path exportPath, String extension) {
+        String name = exportPath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return exportPath.resolveSibling(base + ".stats." + extension);
+    }
+    
+    private void writeStats(ChannelTextWriter out, SymbolStatsIndex.Stats s, boolean first)
+            throws IOException {
+        byte[] stock = escape(s.symbol).getBytes(StandardCharsets.UTF_8);
+        switch (format) {
+            case CSV:
+                out.write(stock).write((byte) ',');
+                out.write(s.count).write((byte) ',');
+                out.writeFixed(s.meanNav, 4).write((byte) ',');
+                out.writeFixed(s.navStandardDeviation(), 4).write((byte) ',');
+                out.writeFixed(s.minNav, 2).write((byte) ',');
+                out.writeFixed(s.maxNav, 2).write((byte) ',');
+                out.writeFixed(s.totalProfitLoss, 2).write((byte) ',');
+                out.writeFixed(s.averageProfitLoss(), 4).write((byte) ',');
+                out.writeFixed(s.totalProfitLossPercent, 2).write((byte) ',');
+                out.writeFixed(s.averageProfitLossPercent(), 4).write((byte) '\n');
+                break;
+            case JSON:
+                out.write(first ? "\n  {\"stock\": \"" : ",\n  {\"stock\": \"");
+                out.write(stock).write("\", \"count\": ");
+                out.write(s.count).write(", \"meanNav\": ");
+                out.writeFixed(s.meanNav, 4).write(", \"navStdDev\": ");
+                out.writeFixed(s.navStandardDeviation(), 4).write(", \"minNav\": ");
+                out.writeFixed(s.minNav, 2).write(", \"maxNav\": ");
+                out.writeFixed(s.maxNav, 2).write(", \"totalProfitLoss\": ");
+                out.writeFixed(s.totalProfitLoss, 2).write(", \"averageProfitLoss\": ");
+                out.writeFixed(s.averageProfitLoss(), 4).write(", \"totalProfitLossPercent\": ");
+                out.writeFixed(s.totalProfitLossPercent, 2).write(", \"averageProfitLossPercent\": ");
+                out.writeFixed(s.averageProfitLossPercent(), 4).write("}");
+                break;
+            case XML:
+                out.write("  <symbol stock=\"").write(stock).write("\" count=\"");
+                out.write(s.count).write("\" meanNav=\"");
+                out.writeFixed(s.meanNav, 4).write("\" navStdDev=\"");
+                out.writeFixed(s.navStandardDeviation(), 4).write("\" minNav=\"");
+                out.writeFixed(s.minNav, 2).write("\" maxNav=\"");
+                out.writeFixed(s.maxNav, 2).write("\" totalProfitLoss=\"");
+                out.writeFixed(s.totalProfitLoss, 2).write("\" averageProfitLoss=\"");
+                out.writeFixed(s.averageProfitLoss(), 4).write("\" totalProfitLossPercent=\"");
+                out.writeFixed(s.totalProfitLossPercent, 2).write("\" averageProfitLossPercent=\"");
+                out.writeFixed(s.averageProfitLossPercent(), 4).write("\"/>\n");
+                break;
+        }
+    }
+    
+    private void writeHeader(ChannelTextWriter out) throws IOException {
+        switch (format) {
+            case CSV:
+                out.write("stock,buying,selling,nav,profitLoss,profitLossPercent,timestamp\n");
+                break;
+            case JSON:
+                out.write("[");
+                break;
+            case XML:
+                out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<navHistory>\n");
+                break;
+        }
+    }
+    
+    private void writeFooter(ChannelTextWriter out) throws IOException {
+        switch (format) {
+            case JSON:
+                out.write("\n]\n");
+                break;
+            case XML:
+                out.write("</navHistory>\n");
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private void writeRecord(ChannelTextWriter out, HistoryStore.Batch batch, int i, boolean first)
+            throws IOException {
+        byte[] stock = symbolBytes(batch.symbolIds[i]);
+        switch (format) {
+            case CSV:
+                out.write(stock).write((byte) ',');
+                out.writeMoney(batch.buyingPaise[i]).write((byte) ',');
+                out.writeMoney(batch.sellingPaise[i]).write((byte) ',');
+                out.writeMoney(batch.navPaise[i]).write((byte) ',');
+                out.writeMoney(batch.profitLossPaise[i]).write((byte) ',');
+                out.writeFixed(batch.profitLossPercent[i], 2).write((byte) ',');
+                out.writeInstant(batch.timestamps[i]).write((byte) '\n');
+                break;
+            case JSON:
+                out.write(first ? "\n  {\"stock\": \"" : ",\n  {\"stock\": \"");
+                out.write(stock).write("\", \"buying\": ");
+                out.writeMoney(batch.buyingPaise[i]).write(", \"selling\": ");
+                out.writeMoney(batch.sellingPaise[i]).write(", \"nav\": ");
+                out.writeMoney(batch.navPaise[i]).write(", \"profitLoss\": ");
+                out.writeMoney(batch.profitLossPaise[i]).write(", \"profitLossPercent\": ");
+                out.writeFixed(batch.profitLossPercent[i], 2).write(", \"timestamp\": \"");
+                out.writeInstant(batch.timestamps[i]).write("\"}");
+                break;
+            case XML:
+                out.write("  <calculation stock=\"").write(stock).write("\" buying=\"");
+                out.writeMoney(batch.buyingPaise[i]).write("\" selling=\"");
+                out.writeMoney(batch.sellingPaise[i]).write("\" nav=\"");
+                out.writeMoney(batch.navPaise[i]).write("\" profitLoss=\"");
+                out.writeMoney(batch.profitLossPaise[i]).write("\" profitLossPercent=\"");
+                out.writeFixed(batch.profitLossPercent[i], 2).write("\" timestamp=\"");
+                out.writeInstant(batch.timestamps[i]).write("\"/>\n");
+                break;
+        }
+    }
+    
+    private byte[] symbolBytes(int id) {
+        if (id >= symbolBytes.length) {
+            byte[][] grown = new byte[Math.max(id + 1, symbolBytes.length * 2)][];
+            System.arraycopy(symbolBytes, 0, grown, 0, symbolBytes.length);
+            symbolBytes = grown;
+        }
+        byte[] bytes = symbolBytes[id];
+        if (bytes == null) {
+            bytes = escape(store.symbols().name(id)).getBytes(StandardCharsets.UTF_8);
+            symbolBytes[id] = bytes;
+        }
+        return bytes;
+    }
+    
+    private String escape(String symbol) {
+        StringBuilder sb = new StringBuilder(symbol.length() + 8);
+        switch (format) {
+            case CSV:
+                if (symbol.indexOf(',') < 0 && symbol.indexOf('"') < 0 && symbol.indexOf('\n') < 0) {
+                    return symbol;
+                }
+                sb.append('"').append(symbol.replace("\"", "\"\"")).append('"');
+                break;
+            case JSON:
+                for (int i = 0; i < symbol.length(); i++) {
+                    char c = symbol.charAt(i);
+                    if (c == '"' || c == '\\') {
+                        sb.append('\\').append(c);
+                    } else if (c < 0x20) {
+                        sb.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+                break;
+            case XML:
+                for (int i = 0; i < symbol.length(); i++) {
+                    char c = symbol.charAt(i);
+                    switch (c) {
+                        case '&': sb.append("&amp;"); break;
+                        case '<': sb.append("&lt;"); break;
+                        case '>': sb.append("&gt;"); break;
+                        case '"': sb.append("&quot;"); break;
+                        case '\'': sb.append("&apos;"); break;
+                        default: sb.append(c);
+                    }
+                }
+                break;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,362 @@
+package com.tatanav;
+
+import java.util.Arrays;
+
+/**
+ * History Store - Fixed-capacity columnar ring buffer of calculation records
+ * Each field lives in its own primitive column and symbols are stored as
+ * SymbolTable ids, so appending and evicting are O(1) and allocation-free
+ * once the columns have grown to capacity. Amounts are kept exactly, as
+ * paise; the double accessors convert to rupees for display.
+ *
+ * Records are addressed by logical index, 0 being the oldest retained one,
+ * or by sequence number, which counts every record ever appended. The store
+ * is written from the Event Dispatch Thread only; other threads read it in
+ * bulk through copy(), which is synchronized with the writers.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class HistoryStore {
+    
+    private static final int INITIAL_COLUMN_SIZE = 1024;
+    private static final int SNAPSHOT_CHUNK = 8192;
+    
+    private final int capacity;
+    private final SymbolTable symbols;
+    
+    // Columns
+    private int[] symbolIds;
+    private long[] buying;
+    private long[] selling;
+    private long[] nav;
+    private long[] profitLoss;
+    private double[] profitLossPercent;
+    private long[] timestamps;
+    
+    private int head;
+    private int size;
+    private long appended;
+    
+    HistoryStore(int capacity, SymbolTable symbols) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.symbols = symbols;
+        allocate(Math.min(capacity, INITIAL_COLUMN_SIZE));
+    }
+    
+    private void allocate(int length) {
+        symbolIds = new int[length];
+        buying = new long[length];
+        selling = new long[length];
+        nav = new long[length];
+        profitLoss = new long[length];
+        profitLossPercent = new double[length];
+        timestamps = new long[length];
+    }
+    
+    /**
+     * Columns grow by doubling until they reach capacity, which only
+     * happens before the ring has wrapped (head is still 0)
+     */
+    private void grow() {
+        int length = (int) Math.min(capacity, symbolIds.length * 2L);
+        symbolIds = Arrays.copyOf(symbolIds, length);
+        buying = Arrays.copyOf(buying, length);
+        selling = Arrays.copyOf(selling, length);
+        nav = Arrays.copyOf(nav, length);
+        profitLoss = Arrays.copyOf(profitLoss, length);
+        profitLossPercent = Arrays.copyOf(profitLossPercent, length);
+        timestamps = Arrays.copyOf(timestamps, length);
+    }
+    
+    /**
+     * Reusable block of columns filled by copy() for readers off the EDT;
+     * amounts are in paise
+     */
+    static final class Batch {
+        final int[] symbolIds;
+        final long[] buyingPaise;
+        final long[] sellingPaise;
+        final long[] navPaise;
+        final long[] profitLossPaise;
+        final double[] profitLossPercent;
+        final long[] timestamps;
+        long firstSequence;
+        int count;
+        
+        Batch(int length) {
+            symbolIds = new int[length];
+            buyingPaise = new long[length];
+            sellingPaise = new long[length];
+            navPaise = new long[length];
+            profitLossPaise = new long[length];
+            profitLossPercent = new double[length];
+            timestamps = new long[length];
+        }
+    }
+    
+    /**
+     * Append a record with amounts in paise, evicting the oldest one when
+     * the store is full
+     */
+    void append(String stock, long buyingPrice, long sellingPrice, long navValue,
+                long pl, double plPercent, long timestamp) {
+        append(symbols.idOf(stock), buyingPrice, sellingPrice, navValue, pl, plPercent, timestamp);
+    }
+    
+    /**
+     * Append a record for a symbol id of this store's table, without
+     * looking the symbol up
+     */
+    synchronized void append(int symbolId, long buyingPrice, long sellingPrice, long navValue,
+                             long pl, double plPercent, long timestamp) {
+        int slot;
+        if (size < capacity) {
+            if (size == symbolIds.length) {
+                grow();
+            }
+            slot = size++;
+        } else {
+            slot = head;
+            head = head + 1 == capacity ? 0 : head + 1;
+        }
+        
+        symbolIds[slot] = symbolId;
+        buying[slot] = buyingPrice;
+        selling[slot] = sellingPrice;
+        nav[slot] = navValue;
+        profitLoss[slot] = pl;
+        profitLossPercent[slot] = plPercent;
+        timestamps[slot] = timestamp;
+        appended++;
+    }
+    
+    /**
+     * Drop all records; symbol ids stay assigned
+     */
+    synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+    
+    /**
+     * Copy up to batch length records starting at fromSequence but before
+     * toSequence. Records evicted in the meantime are skipped, so the batch
+     * may start later than asked; returns the number of records copied.
+     */
+    synchronized int copy(long fromSequence, long toSequence, Batch batch) {
+        long first = appended - size;
+        long from = Math.max(fromSequence, first);
+        long to = Math.min(toSequence, appended);
+        int n = (int) Math.max(0, Math.min(batch.symbolIds.length, to - from));
+        
+        batch.firstSequence = from;
+        batch.count = n;
+        if (n == 0) {
+            return 0;
+        }
+        
+        // At most two contiguous runs: up to the end of the ring, then from slot 0
+        int start = slot((int) (from - first));
+        int firstRun = Math.min(n, symbolIds.length - start);
+        copyRun(start, batch, 0, firstRun);
+        if (firstRun < n) {
+            copyRun(0, batch, firstRun, n - firstRun);
+        }
+        return n;
+    }
+    
+    /**
+     * Copy the retained records [fromSequence, toSequence) into a batch of
+     * their own. Safe off the EDT: the lock is taken a few thousand
+     * records at a time, and records evicted meanwhile restart the copy
+     * from the new oldest record, so the snapshot is always contiguous.
+     */
+    Batch snapshot(long fromSequence, long toSequence) {
+        long first = fromSequence;
+        while (true) {
+            long end = Math.min(toSequence, endSequence());
+            Batch snapshot = new Batch((int) Math.max(0, end - first));
+            int filled = 0;
+            int n;
+            while (filled < snapshot.symbolIds.length
+                && (n = copyAt(first + filled, end, snapshot, filled)) > 0) {
+                filled += n;
+            }
+            if (filled == snapshot.symbolIds.length) {
+                snapshot.firstSequence = first;
+                snapshot.count = filled;
+                return snapshot;
+            }
+            first = firstSequence();
+        }
+    }
+    
+    /**
+     * Copy up to SNAPSHOT_CHUNK records from fromSequence into the batch at
+     * offset; returns 0 if fromSequence has been evicted
+     */
+    private synchronized int copyAt(long fromSequence, long toSequence, Batch batch, int offset) {
+        long first = appended - size;
+        if (fromSequence < first) {
+            return 0;
+        }
+        int n = (int) Math.max(0, Math.min(toSequence - fromSequence,
+            Math.min(SNAPSHOT_CHUNK, batch.symbolIds.length - offset)));
+        if (n == 0) {
+            return 0;
+        }
+        int start = slot((int) (fromSequence - first));
+        int firstRun = Math.min(n, symbolIds.length - start);
+        copyRun(start, batch, offset, firstRun);
+        if (firstRun < n) {
+            copyRun(0, batch, offset + firstRun, n - firstRun);
+        }
+        return n;
+    }
+    
+    private void copyRun(int slot, Batch batch, int offset, int length) {
+        System.arraycopy(symbolIds, slot, batch.symbolIds, offset, length);
+        System.arraycopy(buying, slot, batch.buyingPaise, offset, length);
+        System.arraycopy(selling, slot, batch.sellingPaise, offset, length);
+        System.arraycopy(nav, slot, batch.navPaise, offset, length);
+        System.arraycopy(profitLoss, slot, batch.profitLossPaise, offset, length);
+        System.arraycopy(profitLossPercent, slot, batch.profitLossPercent, offset, length);
+        System.arraycopy(timestamps, slot, batch.timestamps, offset, length);
+    }
+    
+    /**
+     * Overwrite the NAVs, in paise, of the records fromSequence onwards with
+     * navPaise[0, count), all under one lock so readers see either none or
+     * all of them. Records no longer retained are skipped; returns the
+     * number replaced.
+     */
+    synchronized int replaceNav(long fromSequence, long[] navPaise, int count) {
+        return replaceNavRun(fromSequence, navPaise, count);
+    }
+    
+    /**
+     * Overwrite the NAVs of two ranges of records under one lock, as
+     * replaceNav does for one
+     */
+    synchronized int replaceNav(long fromSequence, long[] navPaise, int count,
+                                long tailSequence, long[] tailNavPaise, int tailCount) {
+        return replaceNavRun(fromSequence, navPaise, count) + replaceNavRun(tailSequence, tailNavPaise, tailCount);
+    }
+    
+    private int replaceNavRun(long fromSequence, long[] navPaise, int count) {
+        long first = appended - size;
+        long from = Math.max(fromSequence, first);
+        long to = Math.min(fromSequence + count, appended);
+        int n = (int) Math.max(0, to - from);
+        if (n == 0) {
+            return 0;
+        }
+        
+        // At most two contiguous runs, as in copy()
+        int start = slot((int) (from - first));
+        int offset = (int) (from - fromSequence);
+        int firstRun = Math.min(n, nav.length - start);
+        System.arraycopy(navPaise, offset, nav, start, firstRun);
+        if (firstRun < n) {
+            System.arraycopy(navPaise, offset + firstRun, nav, 0, n - firstRun);
+        }
+        return n;
+    }
+    
+    /**
+     * Sequence number of the oldest retained record
+     */
+    synchronized long firstSequence() {
+        return appended - size;
+    }
+    
+    /**
+     * Sequence number the next appended record will get
+     */
+    synchronized long endSequence() {
+        return appended;
+    }
+    
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int slot = head + index;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * Total number of records ever appended, including evicted ones
+     */
+    synchronized long appendedCount() {
+        return appended;
+    }
+    
+    SymbolTable symbols() {
+        return symbols;
+    }
+    
+    int symbolId(int index) {
+        return symbolIds[slot(index)];
+    }
+    
+    String stock(int index) {
+        return symbols.name(symbolIds[slot(index)]);
+    }
+    
+    long buyingPaise(int index) {
+        return buying[slot(index)];
+    }
+    
+    long sellingPaise(int index) {
+        return selling[slot(index)];
+    }
+    
+    long navPaise(int index) {
+        return nav[slot(index)];
+    }
+    
+    long profitLossPaise(int index) {
+        return profitLoss[slot(index)];
+    }
+    
+    double buying(int index) {
+        return Money.toRupees(buying[slot(index)]);
+    }
+    
+    double selling(int index) {
+        return Money.toRupees(selling[slot(index)]);
+    }
+    
+    double nav(int index) {
+        return Money.toRupees(nav[slot(index)]);
+    }
+    
+    double profitLoss(int index) {
+        return Money.toRupees(profitLoss[slot(index)]);
+    }
+    
+    double profitLossPercent(int index) {
+        return profitLossPercent[slot(index)];
+    }
+    
+    long timestamp(int index) {
+        return timestamps[slot(index)];
+    }
+}
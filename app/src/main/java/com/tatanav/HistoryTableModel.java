@@ -0,0 +1,314 @@
+package com.tatanav;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * History Table Model - Virtual table over the history store
+ * Rows are not copied: each visible cell is read from the store by its
+ * sequence number when the table paints it. Sorting and filtering work on
+ * an Index built off the EDT, which holds one precomputed permutation per
+ * sortable column plus the symbol id of every row, so changing the order
+ * or the symbol prefix is a single pass over int arrays.
+ *
+ * Used from the EDT only, like the store's writers.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class HistoryTableModel extends AbstractTableModel {
+    
+    static final int COLUMN_NUMBER = 0;
+    static final int COLUMN_STOCK = 1;
+    static final int COLUMN_BUYING = 2;
+    static final int COLUMN_SELLING = 3;
+    static final int COLUMN_NAV = 4;
+    static final int COLUMN_PROFIT_LOSS = 5;
+    static final int COLUMN_PROFIT_LOSS_PERCENT = 6;
+    static final int COLUMN_TIMESTAMP = 7;
+    private static final String[] COLUMN_NAMES = {
+        "#", "Stock", "Buying", "Selling", "NAV", "P/L", "P/L %", "Timestamp"
+    };
+    
+    
+    private final HistoryStore history;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    
+    // Records covered by the table: sequences [firstSequence, firstSequence + count)
+    private long firstSequence;
+    private int count;
+    private Index index;
+    
+    private int sortColumn = COLUMN_NUMBER;
+    private boolean descending = true;
+    private String prefix = "";
+    
+    // Table row -> offset from firstSequence; null means every record in
+    // arrival order
+    private int[] rows;
+    private int rowCount;
+    
+    /**
+     * Sort permutations and symbol ids of a contiguous range of records
+     */
+    static final class Index {
+        final long firstSequence;
+        final int count;
+        final int[] symbolIds;
+        final int[] byStock;
+        final int[] byNav;
+        final int[] byProfitLossPercent;
+        final int[] byTimestamp;
+        
+        private Index(long firstSequence, int count, int[] symbolIds, int[] byStock, int[] byNav,
+                      int[] byProfitLossPercent, int[] byTimestamp) {
+            this.firstSequence = firstSequence;
+            this.count = count;
+            this.symbolIds = symbolIds;
+            this.byStock = byStock;
+            this.byNav = byNav;
+            this.byProfitLossPercent = byProfitLossPercent;
+            this.byTimestamp = byTimestamp;
+        }
+    }
+    
+    HistoryTableModel(HistoryStore history) {
+        this.history = history;
+    }
+    
+    /**
+     * Show every retained record in arrival order straight away; sorting
+     * and filtering wait for the next index
+     */
+    void showArrivalOrder() {
+        firstSequence = history.firstSequence();
+        count = (int) (history.endSequence() - firstSequence);
+        index = null;
+        applyView();
+    }
+    
+    /**
+     * Build an index of the records [fromSequence, toSequence) still
+     * retained. Safe to call off the EDT, as it works on a snapshot.
+     */
+    static Index buildIndex(HistoryStore history, long fromSequence, long toSequence) {
+        HistoryStore.Batch records = history.snapshot(fromSequence, toSequence);
+        long first = records.firstSequence;
+        int count = records.count;
+        int[] symbolIds = records.symbolIds;
+        long[] navKeys = new long[count];
+        long[] percentKeys = new long[count];
+        long[] timeKeys = new long[count];
+        for (int i = 0; i < count; i++) {
+            navKeys[i] = SortIndex.signedKey(records.navPaise[i]);
+            percentKeys[i] = SortIndex.doubleKey(records.profitLossPercent[i]);
+            timeKeys[i] = SortIndex.signedKey(records.timestamps[i]);
+        }
+        
+        // Stock sorts by symbol name, so rank the ids alphabetically first
+        SymbolTable symbols = history.symbols();
+        int symbolCount = symbols.size();
+        String[] names = new String[symbolCount];
+        for (int id = 0; id < symbolCount; id++) {
+            names[id] = symbols.name(id);
+        }
+        Integer[] ids = new Integer[symbolCount];
+        for (int id = 0; id < symbolCount; id++) {
+            ids[id] = id;
+        }
+        Arrays.sort(ids, (a, b) -> names[a].compareTo(names[b]));
+        int[] rank = new int[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            rank[ids[i]] = i;
+        }
+        long[] stockKeys = new long[count];
+        for (int i = 0; i < count; i++) {
+            stockKeys[i] = rank[symbolIds[i]];
+        }
+        
+        return new Index(first, count, symbolIds, SortIndex.order(stockKeys, count),
+            SortIndex.order(navKeys, count), SortIndex.order(percentKeys, count),
+            SortIndex.order(timeKeys, count));
+    }
+    
+    /**
+     * Switch to a freshly built index
+     */
+    void setIndex(Index index) {
+        this.index = index;
+        this.firstSequence = index.firstSequence;
+        this.count = index.count;
+        applyView();
+    }
+    
+    /**
+     * Show exactly these records, given as offsets from firstSequence, in
+     * this order; for query results, which are not re-sorted or filtered
+     */
+    void showRecords(long firstSequence, int[] offsets) {
+        this.firstSequence = firstSequence;
+        this.count = offsets.length;
+        this.index = null;
+        this.rows = offsets;
+        this.rowCount = offsets.length;
+        fireTableDataChanged();
+    }
+    
+    boolean isIndexed() {
+        return index != null;
+    }
+    
+    static boolean isSortable(int column) {
+        return column == COLUMN_NUMBER || column == COLUMN_STOCK || column == COLUMN_NAV
+            || column == COLUMN_PROFIT_LOSS_PERCENT || column == COLUMN_TIMESTAMP;
+    }
+    
+    /**
+     * Sort by a column; sorting by the current column again flips the direction
+     */
+    void sortBy(int column) {
+        if (!isSortable(column)) {
+            return;
+        }
+        if (column == sortColumn) {
+            descending = !descending;
+        } else {
+            sortColumn = column;
+            descending = column == COLUMN_NUMBER || column == COLUMN_TIMESTAMP;
+        }
+        applyView();
+    }
+    
+    int sortColumn() {
+        return sortColumn;
+    }
+    
+    boolean isDescending() {
+        return descending;
+    }
+    
+    /**
+     * Show only symbols starting with prefix (case-insensitive); empty shows all
+     */
+    void setPrefix(String prefix) {
+        String normalized = prefix == null ? "" : prefix.trim().toUpperCase();
+        if (!normalized.equals(this.prefix)) {
+            this.prefix = normalized;
+            applyView();
+        }
+    }
+    
+    /**
+     * Number of records the table would show without a filter
+     */
+    int recordCount() {
+        return count;
+    }
+    
+    private void applyView() {
+        int[] order = index == null ? null : orderFor(sortColumn);
+        boolean[] matches = index == null || prefix.isEmpty() ? null : matchingSymbols();
+        
+        if (matches == null && (order == null || sortColumn == COLUMN_NUMBER)) {
+            rows = null;
+            rowCount = count;
+        } else {
+            int[] view = new int[count];
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                int position = descending ? count - 1 - i : i;
+                int offset = order == null ? position : order[position];
+                if (matches == null || matches[index.symbolIds[offset]]) {
+                    view[n++] = offset;
+                }
+            }
+            rows = view;
+            rowCount = n;
+        }
+        fireTableDataChanged();
+    }
+    
+    /**
+     * Permutation for a column, or null for arrival order
+     */
+    private int[] orderFor(int column) {
+        switch (column) {
+            case COLUMN_STOCK: return index.byStock;
+            case COLUMN_NAV: return index.byNav;
+            case COLUMN_PROFIT_LOSS_PERCENT: return index.byProfitLossPercent;
+            case COLUMN_TIMESTAMP: return index.byTimestamp;
+            default: return null;
+        }
+    }
+    
+    private boolean[] matchingSymbols() {
+        SymbolTable symbols = history.symbols();
+        boolean[] matches = new boolean[symbols.size()];
+        for (int id = 0; id < matches.length; id++) {
+            matches[id] = symbols.name(id).startsWith(prefix);
+        }
+        return matches;
+    }
+    
+    /**
+     * Offset from firstSequence of the record shown in a table row
+     */
+    private int offsetOf(int row) {
+        if (rows != null) {
+            return rows[row];
+        }
+        return descending ? count - 1 - row : row;
+    }
+    
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case COLUMN_NUMBER: return Long.class;
+            case COLUMN_STOCK:
+            case COLUMN_TIMESTAMP: return String.class;
+            default: return Double.class;
+        }
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        long sequence = firstSequence + offsetOf(row);
+        if (column == COLUMN_NUMBER) {
+            return sequence + 1;
+        }
+        
+        // Records evicted since the index was built are shown blank
+        long position = sequence - history.firstSequence();
+        if (position < 0 || position >= history.size()) {
+            return null;
+        }
+        int i = (int) position;
+        switch (column) {
+            case COLUMN_STOCK: return history.stock(i);
+            case COLUMN_BUYING: return history.buying(i);
+            case COLUMN_SELLING: return history.selling(i);
+            case COLUMN_NAV: return history.nav(i);
+            case COLUMN_PROFIT_LOSS: return history.profitLoss(i);
+            case COLUMN_PROFIT_LOSS_PERCENT: return history.profitLossPercent(i);
+            case COLUMN_TIMESTAMP: return dateFormat.format(new Date(history.timestamp(i)));
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.tatanav;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency Histogram - Log-linear histogram of durations in nanoseconds
+ * Buckets follow the HdrHistogram layout: values below 2^SUB_BUCKET_BITS
+ * get a bucket each, and every power of two above that is split into
+ * 2^SUB_BUCKET_BITS equal buckets, so any recorded value is known to
+ * within about 1.6%. Recording is a few shifts and one atomic increment,
+ * with no allocation and no lock, and may happen on any thread.
+ *
+ * Percentiles are read from a Snapshot, which copies the counts once.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values are clamped to just under 2^MAX_EXPONENT ns, about 18 minutes
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    
+    /**
+     * Counts and totals copied at one point in time
+     */
+    static final class Snapshot {
+        private final long[] counts;
+        final long count;
+        final long max;
+        private final long sum;
+        
+        private Snapshot(long[] counts, long count, long max, long sum) {
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+            this.sum = sum;
+        }
+        
+        /**
+         * Highest value of the bucket holding the given percentile (0-100),
+         * or 0 if nothing was recorded
+         */
+        long percentile(double percentile) {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+            return max;
+        }
+        
+        double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+    }
+    
+    /**
+     * Record one duration; negative values count as zero
+     */
+    void record(long nanos) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        counts.incrementAndGet(bucket(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+    
+    long count() {
+        return total.get();
+    }
+    
+    Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, total.get(), max.get(), sum.get());
+    }
+    
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+    
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+    
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,210 @@
+package com.tatanav;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics - Latency histograms of the hot path and event counters
+ * Each Stage has a LatencyHistogram; callers take start() before the
+ * work and pass it to record() after, which costs two nanoTime calls and
+ * no allocation. Safe to record from any thread.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class Metrics {
+    
+    /**
+     * Timed stages of a calculation and of showing it
+     */
+    enum Stage {
+        VALIDATION("Input validation"),
+        CALCULATION("NAV calculation"),
+        RECORDING("Recording result"),
+        FORMATTING("Result formatting"),
+        FEED_BATCH("Feed batch"),
+        UI_REFRESH("UI refresh"),
+        REPAINT("Chart repaint"),
+        EDT_PROBE("EDT probe delay"),
+        API_REQUEST("API request");
+        
+        final String label;
+        
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+    
+    private static final Stage[] STAGES = Stage.values();
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+    
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+    private final AtomicLong calculations = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong repaints = new AtomicLong();
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong stalls = new AtomicLong();
+    private volatile long since = System.currentTimeMillis();
+    // Time to the first painted frame; kept across resets, -1 until shown
+    private volatile long firstFrameMillis = -1;
+    private volatile long firstFrameFromMainMillis = -1;
+    
+    Metrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+    
+    long start() {
+        return System.nanoTime();
+    }
+    
+    /**
+     * Record the time since start for a stage
+     */
+    void record(Stage stage, long start) {
+        histograms[stage.ordinal()].record(System.nanoTime() - start);
+    }
+    
+    LatencyHistogram histogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+    
+    void calculationCompleted() {
+        calculations.incrementAndGet();
+    }
+    
+    void errorReported() {
+        errors.incrementAndGet();
+    }
+    
+    void repainted() {
+        repaints.incrementAndGet();
+    }
+    
+    void ticksReceived(int count) {
+        ticks.addAndGet(count);
+    }
+    
+    void stallDetected() {
+        stalls.incrementAndGet();
+    }
+    
+    /**
+     * Record how long the first frame took to appear after JVM start and after main
+     */
+    void firstFrameShown(long fromJvmStartMillis, long fromMainMillis) {
+        firstFrameFromMainMillis = fromMainMillis;
+        firstFrameMillis = fromJvmStartMillis;
+    }
+    
+    long calculations() {
+        return calculations.get();
+    }
+    
+    long errors() {
+        return errors.get();
+    }
+    
+    long repaints() {
+        return repaints.get();
+    }
+    
+    long ticks() {
+        return ticks.get();
+    }
+    
+    long stalls() {
+        return stalls.get();
+    }
+    
+    void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        calculations.set(0);
+        errors.set(0);
+        repaints.set(0);
+        ticks.set(0);
+        stalls.set(0);
+        since = System.currentTimeMillis();
+    }
+    
+    /**
+     * One line for the status bar: counters plus p99 of the busiest stages
+     */
+    String summary() {
+        LatencyHistogram.Snapshot calculation = histogram(Stage.CALCULATION).snapshot();
+        LatencyHistogram.Snapshot repaint = histogram(Stage.REPAINT).snapshot();
+        String summary = calculations.get() + " calcs, " + errors.get() + " errors"
+            + "  |  calc p99 " + formatNanos(calculation.percentile(99))
+            + "  |  paint p99 " + formatNanos(repaint.percentile(99));
+        long stallCount = stalls.get();
+        return stallCount == 0 ? summary : summary + "  |  " + stallCount + " UI stalls";
+    }
+    
+    /**
+     * Table of every stage, as plain text
+     */
+    String report() {
+        StringBuilder out = new StringBuilder(1024);
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        out.append("TataNav metrics from ").append(format.format(new Date(since)))
+            .append(" to ").append(format.format(new Date())).append('\n');
+        out.append("Calculations: ").append(calculations.get())
+            .append("  Errors: ").append(errors.get())
+            .append("  Repaints: ").append(repaints.get())
+            .append("  Feed ticks: ").append(ticks.get())
+            .append("  EDT stalls: ").append(stalls.get()).append('\n');
+        if (firstFrameMillis >= 0) {
+            out.append("First frame: ").append(firstFrameMillis).append(" ms after JVM start, ")
+                .append(firstFrameFromMainMillis).append(" ms after main\n");
+        }
+        out.append('\n');
+        
+        out.append(String.format("%-20s %10s %10s", "Stage", "Count", "Mean"));
+        for (String name : PERCENTILE_NAMES) {
+            out.append(String.format(" %10s", name));
+        }
+        out.append(String.format(" %10s%n", "Max"));
+        for (Stage stage : STAGES) {
+            LatencyHistogram.Snapshot snapshot = histogram(stage).snapshot();
+            out.append(String.format("%-20s %10d %10s", stage.label, snapshot.count,
+                formatNanos((long) snapshot.mean())));
+            for (double percentile : PERCENTILES) {
+                out.append(String.format(" %10s", formatNanos(snapshot.percentile(percentile))));
+            }
+            out.append(String.format(" %10s%n", formatNanos(snapshot.max)));
+        }
+        return out.toString();
+    }
+    
+    /**
+     * Write the report to a file, replacing it
+     */
+    void dump(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(report());
+        }
+    }
+    
+    static String formatNanos(long nanos) {
+        if (nanos < 1000) {
+            return nanos + " ns";
+        }
+        if (nanos < 1000000) {
+            return String.format("%.1f us", nanos / 1e3);
+        }
+        if (nanos < 1000000000) {
+            return String.format("%.2f ms", nanos / 1e6);
+        }
+        return String.format("%.2f s", nanos / 1e9);
+    }
+}
@@ -0,0 +1,107 @@
+package com.tatanav;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+import javax.swing.*;
+
+/**
+ * Metrics Panel - Live summary of the Metrics shown beside the status line
+ * Refreshes once a second; its menu shows the full percentile table, saves
+ * it to a file or starts a new measurement window.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class MetricsPanel extends JPanel {
+    
+    private static final int REFRESH_MILLIS = 1000;
+    private static final Font SUMMARY_FONT = new Font("Arial", Font.PLAIN, 11);
+    private static final Font REPORT_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    
+    private final Metrics metrics;
+    private final Consumer<String> onStatus;
+    private final JLabel summary = new JLabel();
+    private final Timer refreshTimer;
+    private JPopupMenu menu;
+    
+    /**
+     * onStatus receives messages for the status line
+     */
+    MetricsPanel(Metrics metrics, Consumer<String> onStatus) {
+        super(new FlowLayout(FlowLayout.RIGHT, 6, 0));
+        this.metrics = metrics;
+        this.onStatus = onStatus;
+        
+        summary.setFont(SUMMARY_FONT);
+        summary.setForeground(Color.GRAY);
+        JButton menuButton = new JButton("Metrics");
+        menuButton.setFont(SUMMARY_FONT);
+        menuButton.setMargin(new Insets(1, 6, 1, 6));
+        menuButton.setFocusable(false);
+        // The menu is built on first use, keeping it out of startup
+        menuButton.addActionListener(e -> {
+            if (menu == null) {
+                menu = createMenu();
+            }
+            menu.show(menuButton, 0, menuButton.getHeight());
+        });
+        
+        add(summary);
+        add(menuButton);
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+        refreshTimer.start();
+        refresh();
+    }
+    
+    private JPopupMenu createMenu() {
+        JPopupMenu menu = new JPopupMenu();
+        JMenuItem details = new JMenuItem("Show Percentiles...");
+        details.addActionListener(e -> showDetails());
+        JMenuItem save = new JMenuItem("Save to File...");
+        save.addActionListener(e -> save());
+        JMenuItem reset = new JMenuItem("Reset");
+        reset.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+            onStatus.accept("Metrics reset.");
+        });
+        menu.add(details);
+        menu.add(save);
+        menu.addSeparator();
+        menu.add(reset);
+        return menu;
+    }
+    
+    private void refresh() {
+        summary.setText(metrics.summary());
+    }
+    
+    private void showDetails() {
+        JTextArea report = new JTextArea(metrics.report());
+        report.setFont(REPORT_FONT);
+        report.setEditable(false);
+        JOptionPane.showMessageDialog(SwingUtilities.getWindowAncestor(this), new JScrollPane(report),
+            "Latency Percentiles", JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    private void save() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("nav-metrics.txt"));
+        if (chooser.showSaveDialog(SwingUtilities.getWindowAncestor(this)) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        try {
+            metrics.dump(file.toPath());
+            onStatus.accept("Metrics saved to " + file.getName());
+        } catch (IOException e) {
+            onStatus.accept("Could not save metrics: " + e.getMessage());
+        }
+    }
+    
+    void stop() {
+        refreshTimer.stop();
+    }
+}
@@ -0,0 +1,177 @@
+package com.tatanav;
+
+/**
+ * Money - Fixed-point rupee amounts held as a long count of paise
+ * Prices, NAVs and profit/loss are kept in paise from the moment they are
+ * parsed, so sums and differences are exact and never drift the way
+ * binary floating point does. Amounts are converted to double rupees only
+ * for charting, statistics and the NAV model.
+ *
+ * The parsers work in place on a CharSequence or a byte range and never
+ * allocate. They accept optional surrounding spaces, an optional sign and
+ * [digits][.digits]; digits beyond the second decimal are rounded half-up.
+ * Anything else, or an amount that does not fit, gives INVALID.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class Money {
+    
+    static final int DECIMALS = 2;
+    static final long SCALE = 100;
+    
+    /**
+     * Returned by the parsers for text that is not an amount
+     */
+    static final long INVALID = Long.MIN_VALUE;
+    
+    // Largest whole-rupee part that still fits in paise
+    private static final long MAX_RUPEES = Long.MAX_VALUE / SCALE - 1;
+    
+    private Money() {
+    }
+    
+    static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+    
+    /**
+     * Parse text[start, end) into paise, or INVALID
+     */
+    static long parse(CharSequence text, int start, int end) {
+        // Trims like String.trim, so pasted tabs and newlines are accepted
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        boolean negative = false;
+        if (start < end && (text.charAt(start) == '-' || text.charAt(start) == '+')) {
+            negative = text.charAt(start) == '-';
+            start++;
+        }
+        
+        long rupees = 0;
+        long paise = 0;
+        int decimals = -1;
+        boolean roundUp = false;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (decimals < 0) {
+                    if (rupees > MAX_RUPEES / 10) {
+                        return INVALID;
+                    }
+                    rupees = rupees * 10 + (c - '0');
+                } else if (decimals < DECIMALS) {
+                    paise = paise * 10 + (c - '0');
+                    decimals++;
+                } else if (decimals++ == DECIMALS) {
+                    roundUp = c >= '5';
+                }
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return INVALID;
+            }
+        }
+        return finish(negative, rupees, paise, decimals, roundUp, digits);
+    }
+    
+    /**
+     * Parse bytes[start, end) of ASCII text into paise, or INVALID
+     */
+    static long parse(byte[] bytes, int start, int end) {
+        while (start < end && (bytes[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        boolean negative = false;
+        if (start < end && (bytes[start] == '-' || bytes[start] == '+')) {
+            negative = bytes[start] == '-';
+            start++;
+        }
+        
+        long rupees = 0;
+        long paise = 0;
+        int decimals = -1;
+        boolean roundUp = false;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (decimals < 0) {
+                    if (rupees > MAX_RUPEES / 10) {
+                        return INVALID;
+                    }
+                    rupees = rupees * 10 + (b - '0');
+                } else if (decimals < DECIMALS) {
+                    paise = paise * 10 + (b - '0');
+                    decimals++;
+                } else if (decimals++ == DECIMALS) {
+                    roundUp = b >= '5';
+                }
+            } else if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return INVALID;
+            }
+        }
+        return finish(negative, rupees, paise, decimals, roundUp, digits);
+    }
+    
+    private static long finish(boolean negative, long rupees, long paise, int decimals,
+                               boolean roundUp, int digits) {
+        if (digits == 0 || rupees > MAX_RUPEES) {
+            return INVALID;
+        }
+        // Pad "1.5" to 150 paise
+        for (int d = Math.max(decimals, 0); d < DECIMALS; d++) {
+            paise *= 10;
+        }
+        long amount = rupees * SCALE + paise + (roundUp ? 1 : 0);
+        return negative ? -amount : amount;
+    }
+    
+    /**
+     * Nearest amount in paise to a value in rupees, half away from zero
+     */
+    static long ofRupees(double rupees) {
+        return rupees < 0 ? -Math.round(-rupees * SCALE) : Math.round(rupees * SCALE);
+    }
+    
+    static double toRupees(long paise) {
+        return paise / (double) SCALE;
+    }
+    
+    /**
+     * Percentage that part is of whole, computed from the exact amounts
+     */
+    static double percent(long part, long whole) {
+        return part * 100.0 / whole;
+    }
+    
+    /**
+     * Append the amount as rupees with two decimals, e.g. -12.05
+     */
+    static StringBuilder appendTo(StringBuilder out, long paise) {
+        if (paise < 0) {
+            out.append('-');
+        }
+        // Long.MIN_VALUE has no positive counterpart; its magnitude is still right unsigned
+        long magnitude = Math.abs(paise);
+        long fraction = Long.remainderUnsigned(magnitude, SCALE);
+        out.append(Long.divideUnsigned(magnitude, SCALE)).append('.');
+        return out.append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+    
+    static String format(long paise) {
+        return appendTo(new StringBuilder(24), paise).toString();
+    }
+}
@@ -0,0 +1,191 @@
+package com.tatanav;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monte Carlo Simulator - Distribution of the NAV model over many paths
+ * Each path draws the market volatility term and a point in time for the
+ * trend term, exactly as calculateNAV does for a single click, under the
+ * model current when the run starts. Paths are split across a fork-join
+ * pool; every task owns a SplittableRandom split from its parent, so there
+ * is no shared generator to contend on and the same seed and start time
+ * always give the same result.
+ *
+ * Percentiles come from a fine fixed-width histogram over the model's
+ * bounded output range instead of sorting every sample.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class MonteCarloSimulator {
+    
+    // Histogram range for a model without noise or trend
+    private static final double MIN_SPREAD = 0.01;
+    private static final int BINS = 1 << 14;
+    private static final int MIN_LEAF_PATHS = 1 << 16;
+    
+    private final ForkJoinPool pool;
+    private final long horizonMillis;
+    
+    /**
+     * Summary statistics of one simulation
+     */
+    static final class Result {
+        final long paths;
+        final double mean;
+        final double standardDeviation;
+        final double p1;
+        final double p5;
+        final double p95;
+        final double p99;
+        final long elapsedNanos;
+        
+        Result(long paths, double mean, double standardDeviation, double p1, double p5,
+               double p95, double p99, long elapsedNanos) {
+            this.paths = paths;
+            this.mean = mean;
+            this.standardDeviation = standardDeviation;
+            this.p1 = p1;
+            this.p5 = p5;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+    
+    /**
+     * @param horizonMillis window after now from which each path draws its trend time
+     */
+    MonteCarloSimulator(ForkJoinPool pool, long horizonMillis) {
+        this.pool = pool;
+        this.horizonMillis = horizonMillis;
+    }
+    
+    /**
+     * Simulate the given number of NAV paths for one buying/selling pair
+     */
+    Result simulate(double buying, double selling, long paths, long seed) {
+        long start = System.nanoTime();
+        // The model keeps every NAV within its spread of the mid price
+        NavModel model = NavEngine.model();
+        double spread = Math.max(model.spread(), MIN_SPREAD);
+        double low = (buying + selling) / 2 - spread;
+        double binWidth = 2 * spread / BINS;
+        long leafPaths = Math.max(MIN_LEAF_PATHS, paths / (pool.getParallelism() * 8L));
+        
+        Accumulator total = pool.invoke(new PathTask(model, buying, selling,
+            System.currentTimeMillis(), 0, paths, leafPaths, low, binWidth, new SplittableRandom(seed)));
+        
+        double variance = total.count > 1 ? total.m2 / (total.count - 1) : 0;
+        return new Result(total.count, total.mean, Math.sqrt(variance),
+            total.percentile(0.01, low, binWidth), total.percentile(0.05, low, binWidth),
+            total.percentile(0.95, low, binWidth), total.percentile(0.99, low, binWidth),
+            System.nanoTime() - start);
+    }
+    
+    /**
+     * Running mean/variance (Welford) plus histogram of one range of paths
+     */
+    private static final class Accumulator {
+        final long[] histogram = new long[BINS];
+        long count;
+        double mean;
+        double m2;
+        
+        void add(double value, double low, double binWidth) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+            
+            int bin = (int) ((value - low) / binWidth);
+            histogram[bin < 0 ? 0 : bin >= BINS ? BINS - 1 : bin]++;
+        }
+        
+        /**
+         * Combine with another accumulator (Chan et al. parallel variance)
+         */
+        Accumulator merge(Accumulator other) {
+            if (other.count == 0) {
+                return this;
+            }
+            long combined = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / combined;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / combined);
+            count = combined;
+            for (int i = 0; i < BINS; i++) {
+                histogram[i] += other.histogram[i];
+            }
+            return this;
+        }
+        
+        double percentile(double p, double low, double binWidth) {
+            double target = p * count;
+            long cumulative = 0;
+            for (int i = 0; i < BINS; i++) {
+                long inBin = histogram[i];
+                if (inBin > 0 && cumulative + inBin >= target) {
+                    // Interpolate linearly inside the bin
+                    double fraction = (target - cumulative) / inBin;
+                    return low + (i + fraction) * binWidth;
+                }
+                cumulative += inBin;
+            }
+            return low + BINS * binWidth;
+        }
+    }
+    
+    /**
+     * Simulates paths [from, to), splitting until a range is small enough
+     */
+    private final class PathTask extends RecursiveTask<Accumulator> {
+        private final NavModel model;
+        private final double buying;
+        private final double selling;
+        private final long now;
+        private final long from;
+        private final long to;
+        private final long leafPaths;
+        private final double low;
+        private final double binWidth;
+        private final SplittableRandom random;
+        
+        PathTask(NavModel model, double buying, double selling, long now, long from, long to,
+                 long leafPaths, double low, double binWidth, SplittableRandom random) {
+            this.model = model;
+            this.buying = buying;
+            this.selling = selling;
+            this.now = now;
+            this.from = from;
+            this.to = to;
+            this.leafPaths = leafPaths;
+            this.low = low;
+            this.binWidth = binWidth;
+            this.random = random;
+        }
+        
+        @Override
+        protected Accumulator compute() {
+            if (to - from <= leafPaths) {
+                Accumulator accumulator = new Accumulator();
+                for (long i = from; i < to; i++) {
+                    long time = horizonMillis > 0 ? now + random.nextLong(horizonMillis) : now;
+                    double nav = model.nav(buying, selling, random.nextDouble(), time);
+                    accumulator.add(nav, low, binWidth);
+                }
+                return accumulator;
+            }
+            
+            long middle = from + (to - from) / 2;
+            PathTask right = new PathTask(model, buying, selling, now, middle, to, leafPaths, low,
+                binWidth, random.split());
+            right.fork();
+            Accumulator left = new PathTask(model, buying, selling, now, from, middle, leafPaths, low,
+                binWidth, random).compute();
+            return left.merge(right.join());
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package com.tatanav;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * NAV API Server - Local HTTP/JSON access to the NAV model and history
+ * Built on the JDK's com.sun.net.httpserver; every request runs on its own
+ * thread from TaskExecutors, virtual where the JDK has them.
+ *
+ *   GET  /api/nav?stock=S&buying=B&selling=S  one calculation
+ *   POST /api/nav/batch                       CSV body of stock,buying,selling
+ *   GET  /api/history?from=SEQ&limit=N&symbol=S
+ *   GET  /api/stats[?symbol=S]
+ *   GET  /api/metrics                         latency report as plain text
+ *
+ * Batch rows are parsed in place from the request bytes and written
+ * straight into the response, so a batch costs a few buffers however many
+ * rows it has. Calculations are recorded into the given sink; the history
+ * and stats endpoints only read.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class NavApiServer {
+    
+    static final int DEFAULT_PORT = 8765;
+    private static final int BACKLOG = 1024;
+    private static final int MAX_BODY_BYTES = 64 * 1024 * 1024;
+    private static final int DEFAULT_HISTORY_LIMIT = 100;
+    private static final int MAX_HISTORY_LIMIT = 10000;
+    private static final int HISTORY_BATCH = 1024;
+    private static final byte[] NO_CONTENT = new byte[0];
+    
+    private final HttpServer server;
+    private final ExecutorService executor = TaskExecutors.newPerTaskExecutor("nav-api");
+    private final HistoryStore history;
+    private final SymbolStatsIndex stats;
+    private final CalculationSink recorder;
+    private final Metrics metrics;
+    
+    /**
+     * Error reported to the client with an HTTP status
+     */
+    private static final class ApiException extends Exception {
+        final int status;
+        
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+    
+    /**
+     * A handler that returns the response body and may fail with an ApiException
+     */
+    private interface Endpoint {
+        void handle(HttpExchange exchange, StringBuilder out) throws IOException, ApiException;
+    }
+    
+    /**
+     * Bind the server; single calculations are passed to recorder, which is
+     * called on request threads and must be thread-safe
+     */
+    NavApiServer(InetSocketAddress address, HistoryStore history, SymbolStatsIndex stats,
+                 CalculationSink recorder, Metrics metrics) throws IOException {
+        this.history = history;
+        this.stats = stats;
+        this.recorder = recorder;
+        this.metrics = metrics;
+        // Headers and body go out as separate writes; with Nagle on, each
+        // keep-alive request waits out the client's delayed ACK (~40ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/api/nav", handler("GET", this::calculate));
+        server.createContext("/api/nav/batch", handler("POST", this::calculateBatch));
+        server.createContext("/api/history", handler("GET", this::readHistory));
+        server.createContext("/api/stats", handler("GET", this::readStats));
+        server.createContext("/api/metrics", handler("GET", (exchange, out) -> out.append(metrics.report())));
+    }
+    
+    void start() {
+        server.start();
+    }
+    
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    int port() {
+        return server.getAddress().getPort();
+    }
+    
+    /**
+     * Command line entry point: --serve [--port N] [--bind HOST]. Runs until
+     * the process is stopped, recording single calculations into its own
+     * history.
+     */
+    static int run(String[] args) {
+        int port = DEFAULT_PORT;
+        String bind = "127.0.0.1";
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--bind":
+                        bind = args[++i];
+                        break;
+                    default:
+                        printUsage();
+                        return 2;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            printUsage();
+            return 2;
+        }
+        
+        HistoryStore history = new HistoryStore(Integer.getInteger("nav.history.capacity", 100000),
+            new SymbolTable());
+        SymbolStatsIndex stats = new SymbolStatsIndex(history.symbols());
+        CalculationSink recorder = (stock, buying, selling, nav, pl, plPercent, timestamp) -> {
+            history.append(stock, buying, selling, nav, pl, plPercent, timestamp);
+            stats.record(stock, buying, selling, nav, pl, plPercent, timestamp);
+        };
+        try {
+            NavApiServer server = new NavApiServer(new InetSocketAddress(bind, port), history, stats,
+                recorder, new Metrics());
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            System.out.println("Serving the NAV API on http://" + bind + ":" + server.port() + "/api ("
+                + (TaskExecutors.virtualThreadsAvailable() ? "virtual" : "platform") + " threads)");
+            Thread.currentThread().join();
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Could not start the NAV API: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+    
+    private static void printUsage() {
+        System.err.println("Usage: java TataNavCalculator --serve [--port N] [--bind HOST]");
+    }
+    
+    private HttpHandler handler(String method, Endpoint endpoint) {
+        return exchange -> {
+            long start = metrics.start();
+            StringBuilder out = new StringBuilder(256);
+            int status = 200;
+            try {
+                if (!exchange.getRequestMethod().equals(method)) {
+                    exchange.getResponseHeaders().set("Allow", method);
+                    throw new ApiException(405, "Use " + method);
+                }
+                // Contexts match by prefix; only the exact path is an endpoint
+                if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                    throw new ApiException(404, "No such endpoint");
+                }
+                endpoint.handle(exchange, out);
+            } catch (ApiException e) {
+                status = e.status;
+                out.setLength(0);
+                out.append("{\"error\": ");
+                appendString(out, e.getMessage()).append("}\n");
+            } catch (RuntimeException e) {
+                status = 500;
+                out.setLength(0);
+                out.append("{\"error\": ");
+                appendString(out, String.valueOf(e)).append("}\n");
+            }
+            
+            try {
+                byte[] body = out.length() == 0 ? NO_CONTENT : out.toString().getBytes(StandardCharsets.UTF_8);
+                boolean json = status != 200 || !exchange.getHttpContext().getPath().equals("/api/metrics");
+                exchange.getResponseHeaders().set("Content-Type",
+                    json ? "application/json; charset=utf-8" : "text/plain; charset=utf-8");
+                exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+                try (OutputStream response = exchange.getResponseBody()) {
+                    response.write(body);
+                }
+            } finally {
+                exchange.close();
+                metrics.record(Metrics.Stage.API_REQUEST, start);
+            }
+        };
+    }
+    
+    /**
+     * GET /api/nav: one calculation, passed on to the recorder
+     */
+    private void calculate(HttpExchange exchange, StringBuilder out) throws ApiException {
+        String query = exchange.getRequestURI().getRawQuery();
+        String stock = parameter(query, "stock");
+        if (stock == null || stock.trim().isEmpty()) {
+            throw new ApiException(400, "stock is required");
+        }
+        stock = stock.trim().toUpperCase();
+        long buying = price(query, "buying");
+        long selling = price(query, "selling");
+        
+        long start = metrics.start();
+        long timestamp = System.currentTimeMillis();
+        long nav = NavEngine.calculateNavPaise(buying, selling, ThreadLocalRandom.current().nextDouble(), timestamp);
+        long profitLoss = NavEngine.profitLossPaise(buying, selling);
+        double profitLossPercent = NavEngine.profitLossPercentPaise(buying, selling);
+        metrics.record(Metrics.Stage.CALCULATION, start);
+        recorder.record(stock, buying, selling, nav, profitLoss, profitLossPercent, timestamp);
+        
+        out.append("{\"stock\": ");
+        appendString(out, stock);
+        appendResult(out, buying, selling, nav, profitLoss, profitLossPercent);
+        out.append(", \"timestamp\": ").append(timestamp).append("}\n");
+    }
+    
+    private static long price(String query, String name) throws ApiException {
+        String text = parameter(query, name);
+        if (text == null) {
+            throw new ApiException(400, name + " is required");
+        }
+        long paise = Money.parse(text);
+        if (paise == Money.INVALID || paise <= 0) {
+            throw new ApiException(400, name + " must be a positive price");
+        }
+        return paise;
+    }
+    
+    /**
+     * POST /api/nav/batch: one result per CSV row, in order. Rejected rows
+     * give an error entry with their line number instead.
+     */
+    private void calculateBatch(HttpExchange exchange, StringBuilder out) throws IOException, ApiException {
+        byte[] body = readBody(exchange);
+        int length = body.length;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        int accepted = 0;
+        int rejected = 0;
+        int line = 0;
+        
+        out.ensureCapacity(length * 2 + 64);
+        out.append("{\"results\": [");
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && body[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int end = lineEnd > lineStart && body[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            int start = lineStart;
+            lineStart = lineEnd + 1;
+            line++;
+            if (end == start || (line == 1 && isHeader(body, start, end))) {
+                continue;
+            }
+            
+            int first = indexOf(body, start, end, (byte) ',');
+            int second = first < 0 ? -1 : indexOf(body, first + 1, end, (byte) ',');
+            int third = second < 0 ? -1 : indexOf(body, second + 1, end, (byte) ',');
+            long buying = second < 0 ? Money.INVALID : Money.parse(body, first + 1, second);
+            long selling = second < 0 ? Money.INVALID : Money.parse(body, second + 1, third < 0 ? end : third);
+            int symbolStart = start;
+            int symbolEnd = first;
+            while (symbolStart < symbolEnd && body[symbolStart] == ' ') {
+                symbolStart++;
+            }
+            while (symbolEnd > symbolStart && body[symbolEnd - 1] == ' ') {
+                symbolEnd--;
+            }
+            
+            out.append(accepted + rejected == 0 ? "\n  " : ",\n  ");
+            if (symbolStart >= symbolEnd || buying <= 0 || selling <= 0) {
+                // INVALID is negative, so unparseable prices land here too
+                out.append("{\"line\": ").append(line).append(", \"error\": \"expected stock,buying,selling\"}");
+                rejected++;
+                continue;
+            }
+            
+            long nav = NavEngine.calculateNavPaise(buying, selling, random.nextDouble(), now);
+            out.append("{\"stock\": ");
+            appendSymbol(out, body, symbolStart, symbolEnd);
+            appendResult(out, buying, selling, nav, NavEngine.profitLossPaise(buying, selling),
+                NavEngine.profitLossPercentPaise(buying, selling));
+            out.append('}');
+            accepted++;
+        }
+        out.append(accepted + rejected == 0 ? "]" : "\n]").append(", \"accepted\": ").append(accepted)
+            .append(", \"rejected\": ").append(rejected).append(", \"timestamp\": ").append(now).append("}\n");
+    }
+    
+    private static boolean isHeader(byte[] bytes, int start, int end) {
+        return startsWithIgnoreCase(bytes, start, end, "stock") || startsWithIgnoreCase(bytes, start, end, "symbol");
+    }
+    
+    private static boolean startsWithIgnoreCase(byte[] bytes, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase((char) bytes[start + i]) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static int indexOf(byte[] bytes, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * GET /api/history: up to limit records with sequence >= from, oldest
+     * first; next is the from of the following page. Without from, the
+     * latest records, or with a symbol its oldest records still held.
+     */
+    private void readHistory(HttpExchange exchange, StringBuilder out) throws ApiException {
+        String query = exchange.getRequestURI().getRawQuery();
+        int limit = (int) Math.min(MAX_HISTORY_LIMIT, number(query, "limit", DEFAULT_HISTORY_LIMIT));
+        String symbol = parameter(query, "symbol");
+        int symbolId = -1;
+        if (symbol != null) {
+            symbolId = history.symbols().find(symbol.trim().toUpperCase());
+        }
+        long end = history.endSequence();
+        long from = number(query, "from", symbol == null ? end - limit : history.firstSequence());
+        
+        out.append("{\"first\": ").append(history.firstSequence()).append(", \"end\": ").append(end)
+            .append(", \"records\": [");
+        int written = 0;
+        long next = Math.max(from, history.firstSequence());
+        if (symbol == null || symbolId >= 0) {
+            HistoryStore.Batch batch = new HistoryStore.Batch(
+                symbolId >= 0 ? HISTORY_BATCH : Math.max(1, Math.min(limit, HISTORY_BATCH)));
+            SymbolTable symbols = history.symbols();
+            scan:
+            while (written < limit && history.copy(next, end, batch) > 0) {
+                next = batch.firstSequence;
+                for (int i = 0; i < batch.count; i++, next++) {
+                    if (symbolId >= 0 && batch.symbolIds[i] != symbolId) {
+                        continue;
+                    }
+                    if (written == limit) {
+                        break scan;
+                    }
+                    out.append(written++ == 0 ? "\n  " : ",\n  ");
+                    out.append("{\"sequence\": ").append(next).append(", \"stock\": ");
+                    appendString(out, symbols.name(batch.symbolIds[i]));
+                    appendResult(out, batch.buyingPaise[i], batch.sellingPaise[i], batch.navPaise[i],
+                        batch.profitLossPaise[i], batch.profitLossPercent[i]);
+                    out.append(", \"timestamp\": ").append(batch.timestamps[i]).append('}');
+                }
+            }
+        } else {
+            next = end;
+        }
+        out.append(written == 0 ? "]" : "\n]").append(", \"next\": ").append(next).append("}\n");
+    }
+    
+    /**
+     * GET /api/stats: running statistics of every symbol, or of one
+     */
+    private void readStats(HttpExchange exchange, StringBuilder out) throws ApiException {
+        String symbol = parameter(exchange.getRequestURI().getRawQuery(), "symbol");
+        if (symbol != null) {
+            SymbolStatsIndex.Stats one = stats.get(symbol.trim().toUpperCase());
+            if (one == null) {
+                throw new ApiException(404, "No calculations for " + symbol);
+            }
+            appendStats(out, one);
+            out.append('\n');
+            return;
+        }
+        
+        List<SymbolStatsIndex.Stats> all = stats.snapshot();
+        out.append("{\"symbols\": [");
+        for (int i = 0; i < all.size(); i++) {
+            out.append(i == 0 ? "\n  " : ",\n  ");
+            appendStats(out, all.get(i));
+        }
+        out.append(all.isEmpty() ? "]}\n" : "\n]}\n");
+    }
+    
+    private static void appendStats(StringBuilder out, SymbolStatsIndex.Stats s) {
+        out.append("{\"stock\": ");
+        appendString(out, s.symbol);
+        out.append(", \"count\": ").append(s.count).append(", \"meanNav\": ");
+        DecimalText.appendFixed(out, s.meanNav, 2).append(", \"navStdDev\": ");
+        DecimalText.appendFixed(out, s.navStandardDeviation(), 2).append(", \"minNav\": ");
+        DecimalText.appendFixed(out, s.minNav, 2).append(", \"maxNav\": ");
+        DecimalText.appendFixed(out, s.maxNav, 2).append(", \"totalProfitLoss\": ");
+        DecimalText.appendFixed(out, s.totalProfitLoss, 2).append(", \"averageProfitLossPercent\": ");
+        DecimalText.appendFixed(out, s.averageProfitLossPercent(), 2).append('}');
+    }
+    
+    private static void appendResult(StringBuilder out, long buying, long selling, long nav,
+                                     long profitLoss, double profitLossPercent) {
+        Money.appendTo(out.append(", \"buying\": "), buying);
+        Money.appendTo(out.append(", \"selling\": "), selling);
+        Money.appendTo(out.append(", \"nav\": "), nav);
+        Money.appendTo(out.append(", \"profitLoss\": "), profitLoss);
+        DecimalText.appendFixed(out.append(", \"profitLossPercent\": "), profitLossPercent, 2);
+    }
+    
+    /**
+     * Append symbol bytes upper-cased as a JSON string; only non-ASCII
+     * symbols are decoded through a String
+     */
+    private static void appendSymbol(StringBuilder out, byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] < 0) {
+                appendString(out, new String(bytes, start, end - start, StandardCharsets.UTF_8).toUpperCase());
+                return;
+            }
+        }
+        out.append('"');
+        for (int i = start; i < end; i++) {
+            appendChar(out, Character.toUpperCase((char) bytes[i]));
+        }
+        out.append('"');
+    }
+    
+    private static StringBuilder appendString(StringBuilder out, String text) {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            appendChar(out, text.charAt(i));
+        }
+        return out.append('"');
+    }
+    
+    private static void appendChar(StringBuilder out, char c) {
+        if (c == '"' || c == '\\') {
+            out.append('\\').append(c);
+        } else if (c < 0x20) {
+            out.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+        } else {
+            out.append(c);
+        }
+    }
+    
+    private static byte[] readBody(HttpExchange exchange) throws IOException, ApiException {
+        String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+        int expected = 8192;
+        if (declared != null) {
+            try {
+                long length = Long.parseLong(declared.trim());
+                if (length > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "Body larger than " + MAX_BODY_BYTES + " bytes");
+                }
+                expected = (int) Math.max(length, 0);
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Bad Content-Length");
+            }
+        }
+        
+        // One spare byte, so a body of exactly Content-Length never triggers a grow
+        byte[] body = new byte[Math.min(MAX_BODY_BYTES, expected + 1)];
+        int size = 0;
+        try (InputStream in = exchange.getRequestBody()) {
+            int n;
+            while ((n = in.read(body, size, body.length - size)) >= 0) {
+                size += n;
+                if (size == body.length) {
+                    if (size == MAX_BODY_BYTES) {
+                        throw new ApiException(413, "Body larger than " + MAX_BODY_BYTES + " bytes");
+                    }
+                    body = Arrays.copyOf(body, (int) Math.min(MAX_BODY_BYTES, body.length * 2L));
+                }
+            }
+        }
+        return Arrays.copyOf(body, size);
+    }
+    
+    private static long number(String query, String name, long defaultValue) throws ApiException {
+        String text = parameter(query, name);
+        if (text == null) {
+            return defaultValue;
+        }
+        try {
+            long value = Long.parseLong(text.trim());
+            if (value < 0) {
+                throw new ApiException(400, name + " must not be negative");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be a whole number");
+        }
+    }
+    
+    /**
+     * Decoded value of a query parameter, or null if absent
+     */
+    static String parameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        int start = 0;
+        while (start <= query.length()) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = query.length();
+            }
+            int equals = query.indexOf('=', start);
+            if (equals > start && equals < end && query.regionMatches(start, name, 0, name.length())
+                    && equals - start == name.length()) {
+                try {
+                    return URLDecoder.decode(query.substring(equals + 1, end), "UTF-8");
+                } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+                    return null;
+                }
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+}
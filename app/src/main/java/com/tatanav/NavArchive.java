@@ -0,0 +1,525 @@
+package com.tatanav;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * NAV Archive - Compressed long-term storage of calculation history
+ * Each symbol gets one block holding its records as a bit stream:
+ * delta-of-delta encoded timestamps and XOR (Gorilla-style) compressed
+ * nav, buying and selling values. Profit/loss figures are derived from
+ * buying and selling on decode. Amounts are stored as double rupees and
+ * come back as the same paise they were written from. A block index at the end of the file
+ * lets a reader decode one symbol without touching the other blocks.
+ *
+ * File layout:
+ *   header  : magic (8) | version (4) | reserved (4)
+ *   blocks  : one bit stream per symbol, byte aligned
+ *   index   : entry count (4), then per entry symbol length (2) | symbol |
+ *             offset (8) | length (4) | records (4) | first ts (8) |
+ *             last ts (8) | sorted flag (1)
+ *   footer  : index offset (8) | magic (8)
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class NavArchive {
+    
+    private static final long MAGIC = 0x4E41564152434831L; // "NAVARCH1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int FOOTER_SIZE = 16;
+    private static final int COPY_BATCH = 8192;
+    
+    private NavArchive() {
+    }
+    
+    /**
+     * Location and summary of one symbol block
+     */
+    static final class BlockInfo {
+        final String symbol;
+        final long offset;
+        final int length;
+        final int records;
+        final long firstTimestamp;
+        final long lastTimestamp;
+        final boolean sorted;
+        
+        BlockInfo(String symbol, long offset, int length, int records,
+                  long firstTimestamp, long lastTimestamp, boolean sorted) {
+            this.symbol = symbol;
+            this.offset = offset;
+            this.length = length;
+            this.records = records;
+            this.firstTimestamp = firstTimestamp;
+            this.lastTimestamp = lastTimestamp;
+            this.sorted = sorted;
+        }
+    }
+    
+    /**
+     * Write every record currently in the store to an archive file and
+     * return the number of records archived
+     */
+    static long write(HistoryStore store, Path path) throws IOException {
+        BlockEncoder[] encoders = new BlockEncoder[Math.max(16, store.symbols().size())];
+        HistoryStore.Batch batch = new HistoryStore.Batch(COPY_BATCH);
+        long from = store.firstSequence();
+        long to = store.endSequence();
+        long total = 0;
+        
+        while (store.copy(from, to, batch) > 0) {
+            for (int i = 0; i < batch.count; i++) {
+                int id = batch.symbolIds[i];
+                if (id >= encoders.length) {
+                    encoders = Arrays.copyOf(encoders, Math.max(id + 1, encoders.length * 2));
+                }
+                if (encoders[id] == null) {
+                    encoders[id] = new BlockEncoder();
+                }
+                encoders[id].add(batch.timestamps[i], Money.toRupees(batch.navPaise[i]),
+                    Money.toRupees(batch.buyingPaise[i]), Money.toRupees(batch.sellingPaise[i]));
+            }
+            total += batch.count;
+            from = batch.firstSequence + batch.count;
+        }
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC).putInt(VERSION).putInt(0).flip();
+            writeFully(channel, header);
+            
+            Map<String, BlockInfo> index = new LinkedHashMap<>();
+            long offset = HEADER_SIZE;
+            for (int id = 0; id < encoders.length; id++) {
+                BlockEncoder encoder = encoders[id];
+                if (encoder == null) {
+                    continue;
+                }
+                ByteBuffer block = encoder.bits.toBuffer();
+                int length = block.remaining();
+                writeFully(channel, block);
+                
+                String symbol = store.symbols().name(id);
+                index.put(symbol, new BlockInfo(symbol, offset, length, encoder.count,
+                    encoder.firstTimestamp, encoder.lastTimestamp, encoder.sorted));
+                offset += length;
+            }
+            
+            writeIndex(channel, index, offset);
+        }
+        return total;
+    }
+    
+    private static void writeIndex(FileChannel channel, Map<String, BlockInfo> index, long indexOffset)
+            throws IOException {
+        int size = 4 + FOOTER_SIZE;
+        for (String symbol : index.keySet()) {
+            size += 2 + symbol.getBytes(StandardCharsets.UTF_8).length + 8 + 4 + 4 + 8 + 8 + 1;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(index.size());
+        for (BlockInfo info : index.values()) {
+            byte[] name = info.symbol.getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) name.length).put(name);
+            buffer.putLong(info.offset).putInt(info.length).putInt(info.records);
+            buffer.putLong(info.firstTimestamp).putLong(info.lastTimestamp);
+            buffer.put((byte) (info.sorted ? 1 : 0));
+        }
+        buffer.putLong(indexOffset).putLong(MAGIC);
+        buffer.flip();
+        writeFully(channel, buffer);
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Random-access reader; only the index is loaded up front
+     */
+    static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final Map<String, BlockInfo> index = new LinkedHashMap<>();
+        
+        Reader(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                loadIndex(path);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        
+        private void loadIndex(Path path) throws IOException {
+            long size = channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Not a NAV archive: " + path);
+            }
+            ByteBuffer footer = readAt(size - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong(0);
+            if (footer.getLong(8) != MAGIC || indexOffset < HEADER_SIZE || indexOffset > size - FOOTER_SIZE) {
+                throw new IOException("Not a NAV archive: " + path);
+            }
+            
+            ByteBuffer buffer = readAt(indexOffset, (int) (size - FOOTER_SIZE - indexOffset));
+            int entries = buffer.getInt();
+            for (int i = 0; i < entries; i++) {
+                byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(name);
+                String symbol = new String(name, StandardCharsets.UTF_8);
+                index.put(symbol, new BlockInfo(symbol, buffer.getLong(), buffer.getInt(), buffer.getInt(),
+                    buffer.getLong(), buffer.getLong(), buffer.get() != 0));
+            }
+        }
+        
+        private ByteBuffer readAt(long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Archive truncated");
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+        
+        Set<String> symbols() {
+            return Collections.unmodifiableSet(index.keySet());
+        }
+        
+        BlockInfo block(String symbol) {
+            return index.get(symbol);
+        }
+        
+        /**
+         * Decode the records of one symbol with fromTimestamp <= timestamp <= toTimestamp.
+         * Only that symbol's block is read; returns the number of records emitted.
+         */
+        int read(String symbol, long fromTimestamp, long toTimestamp, CalculationSink sink) throws IOException {
+            BlockInfo info = index.get(symbol);
+            if (info == null || info.records == 0) {
+                return 0;
+            }
+            if (info.sorted && (info.lastTimestamp < fromTimestamp || info.firstTimestamp > toTimestamp)) {
+                return 0;
+            }
+            
+            BlockDecoder decoder = new BlockDecoder(readAt(info.offset, info.length));
+            int emitted = 0;
+            for (int i = 0; i < info.records; i++) {
+                decoder.next();
+                long timestamp = decoder.timestamp;
+                if (timestamp > toTimestamp && info.sorted) {
+                    break;
+                }
+                if (timestamp >= fromTimestamp && timestamp <= toTimestamp) {
+                    long buying = Money.ofRupees(decoder.buying.value);
+                    long selling = Money.ofRupees(decoder.selling.value);
+                    sink.record(symbol, buying, selling, Money.ofRupees(decoder.nav.value),
+                        NavEngine.profitLossPaise(buying, selling),
+                        NavEngine.profitLossPercentPaise(buying, selling), timestamp);
+                    emitted++;
+                }
+            }
+            return emitted;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+    
+    /**
+     * Per-symbol encoder state
+     */
+    private static final class BlockEncoder {
+        final BitWriter bits = new BitWriter();
+        final XorEncoder nav = new XorEncoder();
+        final XorEncoder buying = new XorEncoder();
+        final XorEncoder selling = new XorEncoder();
+        int count;
+        long firstTimestamp;
+        long lastTimestamp;
+        long lastDelta;
+        boolean sorted = true;
+        
+        void add(long timestamp, double navValue, double buyingPrice, double sellingPrice) {
+            if (count == 0) {
+                firstTimestamp = timestamp;
+                bits.write(timestamp, 64);
+            } else {
+                long delta = timestamp - lastTimestamp;
+                writeDeltaOfDelta(delta - lastDelta);
+                lastDelta = delta;
+                if (delta < 0) {
+                    sorted = false;
+                }
+            }
+            lastTimestamp = timestamp;
+            
+            nav.write(bits, navValue);
+            buying.write(bits, buyingPrice);
+            selling.write(bits, sellingPrice);
+            count++;
+        }
+        
+        private void writeDeltaOfDelta(long dod) {
+            if (dod == 0) {
+                bits.write(0, 1);
+            } else if (dod >= -63 && dod <= 64) {
+                bits.write(0b10, 2);
+                bits.write(dod, 7);
+            } else if (dod >= -255 && dod <= 256) {
+                bits.write(0b110, 3);
+                bits.write(dod, 9);
+            } else if (dod >= -2047 && dod <= 2048) {
+                bits.write(0b1110, 4);
+                bits.write(dod, 12);
+            } else {
+                bits.write(0b1111, 4);
+                bits.write(dod, 64);
+            }
+        }
+    }
+    
+    /**
+     * Per-symbol decoder state
+     */
+    private static final class BlockDecoder {
+        final BitReader bits;
+        final XorDecoder nav = new XorDecoder();
+        final XorDecoder buying = new XorDecoder();
+        final XorDecoder selling = new XorDecoder();
+        boolean started;
+        long timestamp;
+        long delta;
+        
+        BlockDecoder(ByteBuffer buffer) {
+            bits = new BitReader(buffer);
+        }
+        
+        void next() {
+            if (!started) {
+                timestamp = bits.read(64);
+                started = true;
+            } else {
+                delta += readDeltaOfDelta();
+                timestamp += delta;
+            }
+            nav.read(bits);
+            buying.read(bits);
+            selling.read(bits);
+        }
+        
+        private long readDeltaOfDelta() {
+            if (bits.read(1) == 0) {
+                return 0;
+            }
+            if (bits.read(1) == 0) {
+                return signExtend(bits.read(7), 7);
+            }
+            if (bits.read(1) == 0) {
+                return signExtend(bits.read(9), 9);
+            }
+            if (bits.read(1) == 0) {
+                return signExtend(bits.read(12), 12);
+            }
+            return bits.read(64);
+        }
+        
+        private static long signExtend(long value, int width) {
+            // Ranges are asymmetric (e.g. -63..64), so the top value decodes as itself
+            long max = 1L << (width - 1);
+            return value > max ? value - (1L << width) : value;
+        }
+    }
+    
+    /**
+     * Gorilla XOR encoding of one double series
+     */
+    private static final class XorEncoder {
+        private long previous;
+        private int leading = -1;
+        private int trailing;
+        private boolean first = true;
+        
+        void write(BitWriter bits, double value) {
+            long current = Double.doubleToRawLongBits(value);
+            if (first) {
+                bits.write(current, 64);
+                previous = current;
+                first = false;
+                return;
+            }
+            
+            long xor = current ^ previous;
+            previous = current;
+            if (xor == 0) {
+                bits.write(0, 1);
+                return;
+            }
+            
+            int lead = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trail = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && lead >= leading && trail >= trailing) {
+                // Fits inside the previous meaningful window
+                bits.write(0b10, 2);
+                bits.write(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                int meaningful = 64 - lead - trail;
+                bits.write(0b11, 2);
+                bits.write(lead, 5);
+                bits.write(meaningful == 64 ? 0 : meaningful, 6);
+                bits.write(xor >>> trail, meaningful);
+                leading = lead;
+                trailing = trail;
+            }
+        }
+    }
+    
+    /**
+     * Gorilla XOR decoding of one double series
+     */
+    private static final class XorDecoder {
+        private long previous;
+        private int leading;
+        private int trailing;
+        private boolean first = true;
+        double value;
+        
+        void read(BitReader bits) {
+            if (first) {
+                previous = bits.read(64);
+                first = false;
+            } else if (bits.read(1) != 0) {
+                if (bits.read(1) != 0) {
+                    leading = (int) bits.read(5);
+                    int meaningful = (int) bits.read(6);
+                    if (meaningful == 0) {
+                        meaningful = 64;
+                    }
+                    trailing = 64 - leading - meaningful;
+                }
+                previous ^= bits.read(64 - leading - trailing) << trailing;
+            }
+            value = Double.longBitsToDouble(previous);
+        }
+    }
+    
+    /**
+     * Growable MSB-first bit buffer
+     */
+    private static final class BitWriter {
+        private byte[] bytes = new byte[256];
+        private int length;
+        private long accumulator;
+        private int pending;
+        
+        /**
+         * Append the low width bits of value (1-64)
+         */
+        void write(long value, int width) {
+            while (width > 0) {
+                int take = Math.min(width, 64 - pending);
+                long chunk = take == 64 ? value : (value >>> (width - take)) & ((1L << take) - 1);
+                accumulator = take == 64 ? chunk : (accumulator << take) | chunk;
+                pending += take;
+                width -= take;
+                if (pending == 64) {
+                    flushWord();
+                }
+            }
+        }
+        
+        private void flushWord() {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (accumulator >>> shift);
+            }
+            accumulator = 0;
+            pending = 0;
+        }
+        
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + extra, bytes.length * 2));
+            }
+        }
+        
+        ByteBuffer toBuffer() {
+            byte[] out = Arrays.copyOf(bytes, length + (pending + 7) / 8);
+            long tail = accumulator << (64 - pending);
+            for (int i = 0; i < (pending + 7) / 8; i++) {
+                out[length + i] = (byte) (tail >>> (56 - 8 * i));
+            }
+            return ByteBuffer.wrap(out);
+        }
+    }
+    
+    /**
+     * MSB-first bit reader over a byte buffer
+     */
+    private static final class BitReader {
+        private final ByteBuffer buffer;
+        private long word;
+        private int available;
+        
+        BitReader(ByteBuffer buffer) {
+            this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+        }
+        
+        /**
+         * Read width bits (1-64) as an unsigned value
+         */
+        long read(int width) {
+            long result = 0;
+            while (width > 0) {
+                if (available == 0) {
+                    refill();
+                }
+                int take = Math.min(width, available);
+                long bits = (word >>> (available - take)) & (take == 64 ? -1L : (1L << take) - 1);
+                result = take == 64 ? bits : (result << take) | bits;
+                available -= take;
+                width -= take;
+            }
+            return result;
+        }
+        
+        private void refill() {
+            if (buffer.remaining() >= 8) {
+                word = buffer.getLong();
+                available = 64;
+            } else {
+                word = 0;
+                available = 0;
+                while (buffer.hasRemaining()) {
+                    word = (word << 8) | (buffer.get() & 0xFF);
+                    available += 8;
+                }
+                if (available == 0) {
+                    throw new IllegalStateException("Archive block truncated");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.tatanav;
+
+/**
+ * NAV Engine - The calculation model shared by the Swing UI and the headless modes
+ * Keeps the NAV, profit/loss and percentage math free of any UI state.
+ * NAVs come from the current NavModel, which Settings can replace.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class NavEngine {
+    
+    private static volatile NavModel model = NavModel.DEFAULT;
+    
+    private NavEngine() {
+    }
+    
+    static NavModel model() {
+        return model;
+    }
+    
+    /**
+     * Use a new model for every calculation from now on
+     */
+    static void setModel(NavModel newModel) {
+        model = newModel;
+    }
+    
+    /**
+     * Calculate NAV using the shared random generator and the current time
+     */
+    static double calculateNAV(double buying, double selling) {
+        return calculateNAV(buying, selling, Math.random(), System.currentTimeMillis());
+    }
+    
+    /**
+     * Calculate NAV from an explicit random sample in [0, 1) and a point in time
+     */
+    static double calculateNAV(double buying, double selling, double random, long timeMillis) {
+        return model.nav(buying, selling, random, timeMillis);
+    }
+    
+    /**
+     * NAV in paise using the shared random generator and the current time
+     */
+    static long calculateNavPaise(long buying, long selling) {
+        return calculateNavPaise(buying, selling, Math.random(), System.currentTimeMillis());
+    }
+    
+    /**
+     * NAV in paise for prices in paise, rounded to the nearest paisa
+     */
+    static long calculateNavPaise(long buying, long selling, double random, long timeMillis) {
+        return Money.ofRupees(calculateNAV(Money.toRupees(buying), Money.toRupees(selling), random, timeMillis));
+    }
+    
+    /**
+     * Exact profit or loss in paise between buying and selling price in paise
+     */
+    static long profitLossPaise(long buying, long selling) {
+        return selling - buying;
+    }
+    
+    /**
+     * Profit or loss as a percentage of the buying price, from exact amounts in paise
+     */
+    static double profitLossPercentPaise(long buying, long selling) {
+        return Money.percent(selling - buying, buying);
+    }
+    
+    /**
+     * Absolute profit or loss between buying and selling price
+     */
+    static double profitLoss(double buying, double selling) {
+        return selling - buying;
+    }
+    
+    /**
+     * Profit or loss as a percentage of the buying price
+     */
+    static double profitLossPercent(double buying, double selling) {
+        return ((selling - buying) / buying) * 100;
+    }
+}
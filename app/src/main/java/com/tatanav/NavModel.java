@@ -0,0 +1,131 @@
+package com.tatanav;
+
+/**
+ * NAV Model - Parameters of the NAV calculation
+ * NAV is the mid price, plus market noise of up to volatility rupees
+ * either side, plus a sine trend of trendAmplitude rupees over time. The
+ * defaults are the model the calculator has always used: a +-5 band and
+ * a +-2 trend of sin(time / 1,000,000 ms).
+ *
+ * Immutable; NavEngine holds the one in use.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class NavModel {
+
+    static final NavModel DEFAULT = new NavModel(5.0, 2.0, 1000000.0);
+
+    final double volatility;
+    final double trendAmplitude;
+    final double trendScaleMillis;
+
+    /**
+     * @param volatility half-width of the market noise band in rupees
+     * @param trendAmplitude peak of the trend term in rupees
+     * @param trendScaleMillis milliseconds per radian of the trend
+     */
+    NavModel(double volatility, double trendAmplitude, double trendScaleMillis) {
+        if (!(volatility >= 0) || Double.isInfinite(volatility)) {
+            throw new IllegalArgumentException("Volatility must be zero or more: " + volatility);
+        }
+        if (Double.isNaN(trendAmplitude) || Double.isInfinite(trendAmplitude)) {
+            throw new IllegalArgumentException("Trend amplitude must be a number: " + trendAmplitude);
+        }
+        if (!(trendScaleMillis > 0) || Double.isInfinite(trendScaleMillis)) {
+            throw new IllegalArgumentException("Trend scale must be positive: " + trendScaleMillis);
+        }
+        this.volatility = volatility;
+        this.trendAmplitude = trendAmplitude;
+        this.trendScaleMillis = trendScaleMillis;
+    }
+
+    /**
+     * NAV from a random sample in [0, 1) and a point in time
+     */
+    double nav(double buying, double selling, double random, long timeMillis) {
+        double baseNav = (buying + selling) / 2;
+        double marketVolatility = (random - 0.5) * 2 * volatility;
+        double trendFactor = Math.sin(timeMillis / trendScaleMillis) * trendAmplitude;
+
+        return baseNav + marketVolatility + trendFactor;
+    }
+
+    /**
+     * NAV in paise for prices in paise, rounded to the nearest paisa
+     */
+    long navPaise(long buying, long selling, double random, long timeMillis) {
+        return Money.ofRupees(nav(Money.toRupees(buying), Money.toRupees(selling), random, timeMillis));
+    }
+
+    /**
+     * The random sample this model would have drawn to give navPaise for
+     * the record, or NaN if no sample in [0, 1) gives it (it was calculated
+     * under another model, or this one has no noise)
+     */
+    double sampleOf(long buying, long selling, long navPaise, long timeMillis) {
+        if (volatility == 0) {
+            return Double.NaN;
+        }
+        double baseNav = (Money.toRupees(buying) + Money.toRupees(selling)) / 2;
+        double trendFactor = Math.sin(timeMillis / trendScaleMillis) * trendAmplitude;
+        double sample = (Money.toRupees(navPaise) - baseNav - trendFactor) / (2 * volatility) + 0.5;
+
+        // Rounding to paise moves the sample by up to half a paisa of band
+        double tolerance = 0.5 / Money.SCALE / (2 * volatility) + 1e-9;
+        if (!(sample >= -tolerance && sample <= 1 + tolerance)) {
+            return Double.NaN;
+        }
+        return Math.min(Math.max(sample, 0), Math.nextDown(1.0));
+    }
+
+    /**
+     * A sample in [0, 1) that depends only on the record, for records
+     * whose own sample cannot be recovered
+     */
+    static double recordSample(long buying, long selling, long timeMillis) {
+        long z = timeMillis * 0x9E3779B97F4A7C15L + buying * 0xBF58476D1CE4E5B9L + selling;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Largest distance of a NAV from the mid price
+     */
+    double spread() {
+        return volatility + Math.abs(trendAmplitude);
+    }
+
+    /**
+     * Form stored in preferences: volatility,trendAmplitude,trendScaleMillis
+     */
+    String encode() {
+        return volatility + "," + trendAmplitude + "," + trendScaleMillis;
+    }
+
+    /**
+     * Model from encode() text, or null if it is not one
+     */
+    static NavModel decode(String text) {
+        if (text == null) {
+            return null;
+        }
+        String[] parts = text.split(",");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new NavModel(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()),
+                Double.parseDouble(parts[2].trim()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    boolean sameAs(NavModel other) {
+        return other != null && volatility == other.volatility && trendAmplitude == other.trendAmplitude
+            && trendScaleMillis == other.trendScaleMillis;
+    }
+}
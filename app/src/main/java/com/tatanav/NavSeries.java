@@ -0,0 +1,160 @@
+package com.tatanav;
+
+import java.util.Arrays;
+
+/**
+ * NAV Series - Bounded ring of chart values with O(1) range tracking
+ * Minimum and maximum over the retained window are kept in monotonic
+ * deques, so appends and evictions never rescan the series
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class NavSeries {
+    
+    private static final int INITIAL_SIZE = 256;
+    
+    private final int capacity;
+    private double[] values;
+    private int head;
+    private int size;
+    private long appended;
+    private long version;
+    
+    // Sequence numbers of candidate minima (values ascending) and maxima (descending)
+    private final SequenceDeque minima = new SequenceDeque();
+    private final SequenceDeque maxima = new SequenceDeque();
+    
+    NavSeries(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Series capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.values = new double[Math.min(capacity, INITIAL_SIZE)];
+    }
+    
+    /**
+     * Append a value, evicting the oldest one when full
+     */
+    void append(double value) {
+        if (size < capacity) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, (int) Math.min(capacity, values.length * 2L));
+            }
+            values[size++] = value;
+        } else {
+            values[head] = value;
+            head = head + 1 == capacity ? 0 : head + 1;
+        }
+        long sequence = appended++;
+        long first = appended - size;
+        
+        // Drop evicted candidates first; their slots may have just been reused
+        while (!minima.isEmpty() && minima.peekFirst() < first) {
+            minima.pollFirst();
+        }
+        while (!maxima.isEmpty() && maxima.peekFirst() < first) {
+            maxima.pollFirst();
+        }
+        
+        while (!minima.isEmpty() && valueAt(minima.peekLast()) >= value) {
+            minima.pollLast();
+        }
+        minima.addLast(sequence);
+        while (!maxima.isEmpty() && valueAt(maxima.peekLast()) <= value) {
+            maxima.pollLast();
+        }
+        maxima.addLast(sequence);
+        version++;
+    }
+    
+    void clear() {
+        head = 0;
+        size = 0;
+        minima.clear();
+        maxima.clear();
+        version++;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Value at logical index, 0 being the oldest
+     */
+    double get(int index) {
+        int slot = head + index;
+        return values[slot >= capacity ? slot - capacity : slot];
+    }
+    
+    private double valueAt(long sequence) {
+        return get((int) (sequence - (appended - size)));
+    }
+    
+    double min() {
+        return size == 0 ? 0 : valueAt(minima.peekFirst());
+    }
+    
+    double max() {
+        return size == 0 ? 0 : valueAt(maxima.peekFirst());
+    }
+    
+    /**
+     * Changes on every modification; lets renderers cache derived data
+     */
+    long version() {
+        return version;
+    }
+    
+    /**
+     * Growable circular deque of longs
+     */
+    private static final class SequenceDeque {
+        private long[] items = new long[16];
+        private int first;
+        private int count;
+        
+        boolean isEmpty() {
+            return count == 0;
+        }
+        
+        long peekFirst() {
+            return items[first];
+        }
+        
+        long peekLast() {
+            return items[(first + count - 1) & (items.length - 1)];
+        }
+        
+        void addLast(long item) {
+            if (count == items.length) {
+                long[] grown = new long[items.length * 2];
+                for (int i = 0; i < count; i++) {
+                    grown[i] = items[(first + i) & (items.length - 1)];
+                }
+                items = grown;
+                first = 0;
+            }
+            items[(first + count++) & (items.length - 1)] = item;
+        }
+        
+        void pollFirst() {
+            first = (first + 1) & (items.length - 1);
+            count--;
+        }
+        
+        void pollLast() {
+            count--;
+        }
+        
+        void clear() {
+            first = 0;
+            count = 0;
+        }
+    }
+}
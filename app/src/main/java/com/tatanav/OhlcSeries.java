@@ -0,0 +1,180 @@
+package com.tatanav;
+
+import java.util.Arrays;
+
+/**
+ * OHLC Series - Bounded ring of open/high/low/close bars of one interval
+ * A value inside the newest bar's bucket updates that bar in place and a
+ * later one opens a new bar, so each update is O(1); the oldest bar is
+ * dropped once the ring is full. Late values for an older retained bucket
+ * are found by binary search and only widen its high/low.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class OhlcSeries {
+    
+    private static final int INITIAL_SIZE = 64;
+    
+    private final BarInterval interval;
+    private final int capacity;
+    
+    // Columns
+    private long[] starts;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private int[] ticks;
+    
+    private int head;
+    private int size;
+    private long version;
+    
+    OhlcSeries(BarInterval interval, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Bar capacity must be positive: " + capacity);
+        }
+        this.interval = interval;
+        this.capacity = capacity;
+        int length = Math.min(capacity, INITIAL_SIZE);
+        starts = new long[length];
+        open = new double[length];
+        high = new double[length];
+        low = new double[length];
+        close = new double[length];
+        ticks = new int[length];
+    }
+    
+    /**
+     * Fold a value produced at timestamp into its bar
+     */
+    void add(long timestamp, double value) {
+        long start = interval.bucketStart(timestamp);
+        if (size > 0) {
+            int last = slot(size - 1);
+            if (start == starts[last]) {
+                high[last] = Math.max(high[last], value);
+                low[last] = Math.min(low[last], value);
+                close[last] = value;
+                ticks[last]++;
+                version++;
+                return;
+            }
+            if (start < starts[last]) {
+                addLate(start, value);
+                return;
+            }
+        }
+        
+        int slot;
+        if (size < capacity) {
+            if (size == starts.length) {
+                grow();
+            }
+            slot = size++;
+        } else {
+            slot = head;
+            head = head + 1 == capacity ? 0 : head + 1;
+        }
+        starts[slot] = start;
+        open[slot] = value;
+        high[slot] = value;
+        low[slot] = value;
+        close[slot] = value;
+        ticks[slot] = 1;
+        version++;
+    }
+    
+    private void addLate(long start, double value) {
+        int from = 0;
+        int to = size - 1;
+        while (from <= to) {
+            int middle = (from + to) >>> 1;
+            int slot = slot(middle);
+            if (starts[slot] < start) {
+                from = middle + 1;
+            } else if (starts[slot] > start) {
+                to = middle - 1;
+            } else {
+                high[slot] = Math.max(high[slot], value);
+                low[slot] = Math.min(low[slot], value);
+                ticks[slot]++;
+                version++;
+                return;
+            }
+        }
+        // No retained bar for that bucket; the value is too late to chart
+    }
+    
+    /**
+     * Columns grow by doubling until they reach capacity, which only
+     * happens before the ring has wrapped (head is still 0)
+     */
+    private void grow() {
+        int length = (int) Math.min(capacity, starts.length * 2L);
+        starts = Arrays.copyOf(starts, length);
+        open = Arrays.copyOf(open, length);
+        high = Arrays.copyOf(high, length);
+        low = Arrays.copyOf(low, length);
+        close = Arrays.copyOf(close, length);
+        ticks = Arrays.copyOf(ticks, length);
+    }
+    
+    void clear() {
+        head = 0;
+        size = 0;
+        version++;
+    }
+    
+    private int slot(int index) {
+        int slot = head + index;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+    
+    BarInterval interval() {
+        return interval;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Changes on every modification; lets renderers cache derived data
+     */
+    long version() {
+        return version;
+    }
+    
+    /**
+     * Bar accessors by logical index, 0 being the oldest retained bar
+     */
+    long start(int index) {
+        return starts[slot(index)];
+    }
+    
+    double open(int index) {
+        return open[slot(index)];
+    }
+    
+    double high(int index) {
+        return high[slot(index)];
+    }
+    
+    double low(int index) {
+        return low[slot(index)];
+    }
+    
+    double close(int index) {
+        return close[slot(index)];
+    }
+    
+    int ticks(int index) {
+        return ticks[slot(index)];
+    }
+}
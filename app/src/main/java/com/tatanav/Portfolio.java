@@ -0,0 +1,249 @@
+package com.tatanav;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Portfolio - Holdings revalued incrementally as prices change
+ * Each holding is a quantity and a total cost basis, marked at the latest
+ * NAV per unit of its symbol. Columns are indexed by SymbolTable id, and
+ * the portfolio value is kept as a running total: a new mark adds only
+ * quantity * (new - old) for that one holding, so an update is O(1)
+ * however many holdings there are. All amounts are paise, so the running
+ * total never drifts from the true sum.
+ *
+ * Updated on the EDT; totals may be read from any thread.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class Portfolio implements CalculationSink {
+    
+    private static final int INITIAL_SYMBOLS = 16;
+    
+    private final SymbolTable symbols;
+    
+    // Columns indexed by symbol id; a quantity of 0 means no holding
+    private long[] quantities = new long[INITIAL_SYMBOLS];
+    private long[] costs = new long[INITIAL_SYMBOLS];
+    private long[] marks = new long[INITIAL_SYMBOLS];
+    private int holdings;
+    private long value;
+    private long cost;
+    private long version;
+    
+    Portfolio(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+    
+    /**
+     * Marks the holding of the stock, if any, at the calculated NAV
+     */
+    @Override
+    public void record(String stock, long buying, long selling, long nav,
+                       long profitLoss, double profitLossPercent, long timestamp) {
+        int id = symbols.find(stock);
+        if (id >= 0) {
+            mark(id, nav);
+        }
+    }
+    
+    /**
+     * Revalue the holding of a symbol id at a new price per unit in paise.
+     * Returns false if there is no such holding, or if the value at that
+     * price would overflow, in which case the mark is ignored.
+     */
+    synchronized boolean mark(int symbolId, long price) {
+        if (symbolId >= quantities.length || quantities[symbolId] == 0) {
+            return false;
+        }
+        try {
+            value = Math.addExact(value,
+                Math.multiplyExact(quantities[symbolId], Math.subtractExact(price, marks[symbolId])));
+        } catch (ArithmeticException e) {
+            return false;
+        }
+        marks[symbolId] = price;
+        version++;
+        return true;
+    }
+    
+    /**
+     * Add a lot of quantity units bought at unitCost to the holding of a
+     * symbol id, and mark the whole holding at price. Throws
+     * ArithmeticException, leaving the portfolio unchanged, if a total
+     * would overflow.
+     */
+    synchronized void add(int symbolId, long quantity, long unitCost, long price) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        if (symbolId >= quantities.length) {
+            grow(symbolId + 1);
+        }
+        long held = quantities[symbolId];
+        long quantityAfter = Math.addExact(held, quantity);
+        long lotCost = Math.multiplyExact(quantity, unitCost);
+        long valueAfter = Math.addExact(Math.subtractExact(value, Math.multiplyExact(held, marks[symbolId])),
+            Math.multiplyExact(quantityAfter, price));
+        long costAfter = Math.addExact(cost, lotCost);
+        long holdingCost = Math.addExact(costs[symbolId], lotCost);
+        
+        if (held == 0) {
+            holdings++;
+        }
+        value = valueAfter;
+        cost = costAfter;
+        quantities[symbolId] = quantityAfter;
+        costs[symbolId] = holdingCost;
+        marks[symbolId] = price;
+        version++;
+    }
+    
+    private void grow(int minimum) {
+        int length = Math.max(minimum, quantities.length * 2);
+        quantities = Arrays.copyOf(quantities, length);
+        costs = Arrays.copyOf(costs, length);
+        marks = Arrays.copyOf(marks, length);
+    }
+    
+    synchronized void clear() {
+        Arrays.fill(quantities, 0);
+        Arrays.fill(costs, 0);
+        Arrays.fill(marks, 0);
+        holdings = 0;
+        value = 0;
+        cost = 0;
+        version++;
+    }
+    
+    /**
+     * Replace the holdings with those of a CSV of symbol,quantity,unitCost
+     * rows (an optional header line is skipped); rows of the same symbol
+     * are lots of one holding. Holdings start marked at their unit cost.
+     * Returns the number of rows skipped as malformed or too large.
+     */
+    int load(Path path) throws IOException {
+        Portfolio loaded = new Portfolio(symbols);
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String row;
+            boolean first = true;
+            while ((row = reader.readLine()) != null) {
+                boolean header = first && (row.regionMatches(true, 0, "stock", 0, 5)
+                    || row.regionMatches(true, 0, "symbol", 0, 6));
+                first = false;
+                if (header || row.trim().isEmpty()) {
+                    continue;
+                }
+                int comma = row.indexOf(',');
+                int second = comma < 0 ? -1 : row.indexOf(',', comma + 1);
+                int end = second < 0 ? -1 : row.indexOf(',', second + 1);
+                long quantity = second < 0 ? -1 : parseQuantity(row, comma + 1, second);
+                long unitCost = second < 0 ? Money.INVALID
+                    : Money.parse(row, second + 1, end < 0 ? row.length() : end);
+                String stock = comma < 0 ? "" : row.substring(0, comma).trim().toUpperCase();
+                if (stock.isEmpty() || quantity <= 0 || unitCost <= 0) {
+                    skipped++;
+                    continue;
+                }
+                try {
+                    loaded.add(symbols.idOf(stock), quantity, unitCost, unitCost);
+                } catch (ArithmeticException e) {
+                    // Too large to total exactly in paise
+                    skipped++;
+                }
+            }
+        }
+        
+        synchronized (this) {
+            quantities = loaded.quantities;
+            costs = loaded.costs;
+            marks = loaded.marks;
+            holdings = loaded.holdings;
+            value = loaded.value;
+            cost = loaded.cost;
+            version++;
+        }
+        return skipped;
+    }
+    
+    /**
+     * Whole number of units in text[start, end), or -1
+     */
+    private static long parseQuantity(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (start == end || end - start > 15) {
+            return -1;
+        }
+        long quantity = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            quantity = quantity * 10 + (c - '0');
+        }
+        return quantity;
+    }
+    
+    /**
+     * Ids of the symbols held, in id order
+     */
+    synchronized int[] symbolIds() {
+        int[] ids = new int[holdings];
+        int n = 0;
+        for (int id = 0; id < quantities.length && n < ids.length; id++) {
+            if (quantities[id] != 0) {
+                ids[n++] = id;
+            }
+        }
+        return ids;
+    }
+    
+    synchronized int holdings() {
+        return holdings;
+    }
+    
+    synchronized boolean isEmpty() {
+        return holdings == 0;
+    }
+    
+    /**
+     * Market value of all holdings at their latest marks, in paise
+     */
+    synchronized long value() {
+        return value;
+    }
+    
+    /**
+     * Total cost basis, in paise
+     */
+    synchronized long cost() {
+        return cost;
+    }
+    
+    synchronized long profitLoss() {
+        return value - cost;
+    }
+    
+    synchronized double profitLossPercent() {
+        return cost == 0 ? 0 : Money.percent(value - cost, cost);
+    }
+    
+    /**
+     * Changes on every update; lets views skip refreshing unchanged totals
+     */
+    synchronized long version() {
+        return version;
+    }
+}
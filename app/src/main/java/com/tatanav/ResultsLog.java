@@ -0,0 +1,167 @@
+package com.tatanav;
+
+import java.util.function.IntFunction;
+import javax.swing.AbstractListModel;
+
+/**
+ * Results Log - Bounded list model behind the calculation results view
+ * Each entry is a block of text lines that are only formatted when the
+ * list asks for them, which a fixed-height JList does for visible rows
+ * only. Once the retention cap is reached the oldest entry is dropped for
+ * every new one, so memory stays flat however long the session runs.
+ *
+ * Additions are not announced one by one: listeners see them when
+ * publish() is called, as a single removal and a single addition, so a
+ * burst of entries costs the list one update.
+ *
+ * Not thread-safe; use it from the EDT like any other Swing model.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class ResultsLog extends AbstractListModel<String> {
+    
+    private final int capacity;
+    private final IntFunction<?>[] entries;
+    private final int[] lineCounts;
+    // Absolute number of each entry's first line, increasing with age
+    private final long[] startLines;
+    private int head;
+    private int size;
+    private long firstLine;
+    private long endLine;
+    
+    // The lines listeners know about, as of the last publish
+    private long publishedFirstLine;
+    private int publishedSize;
+    
+    // Entry found by the last lookup; rows are usually requested in order
+    private int lastEntry = -1;
+    
+    /**
+     * @param capacity maximum number of entries retained
+     */
+    ResultsLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Results log capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new IntFunction<?>[capacity];
+        this.lineCounts = new int[capacity];
+        this.startLines = new long[capacity];
+    }
+    
+    /**
+     * Add an entry of lineCount lines, evicting the oldest entry when full.
+     * lines maps a line index within the entry to its text. Listeners are
+     * told on the next publish().
+     */
+    void add(int lineCount, IntFunction<String> lines) {
+        if (size == capacity) {
+            int evicted = lineCounts[head];
+            entries[head] = null;
+            head = head + 1 == capacity ? 0 : head + 1;
+            size--;
+            firstLine += evicted;
+            lastEntry = -1;
+        }
+        
+        int slot = slot(size++);
+        entries[slot] = lines;
+        lineCounts[slot] = lineCount;
+        startLines[slot] = endLine;
+        endLine += lineCount;
+    }
+    
+    /**
+     * Tell listeners about every eviction and addition since the last call
+     */
+    void publish() {
+        int removed = (int) Math.min(firstLine - publishedFirstLine, publishedSize);
+        int kept = publishedSize - removed;
+        int size = (int) (endLine - firstLine);
+        publishedFirstLine = firstLine;
+        if (removed > 0) {
+            publishedSize = kept;
+            fireIntervalRemoved(this, 0, removed - 1);
+        }
+        if (size > kept) {
+            publishedSize = size;
+            fireIntervalAdded(this, kept, size - 1);
+        }
+    }
+    
+    /**
+     * Remove every entry and tell listeners at once
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            entries[slot(i)] = null;
+        }
+        head = 0;
+        size = 0;
+        firstLine = endLine;
+        lastEntry = -1;
+        publish();
+    }
+    
+    int entryCount() {
+        return size;
+    }
+    
+    int capacity() {
+        return capacity;
+    }
+    
+    private int slot(int index) {
+        int slot = head + index;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+    
+    @Override
+    public int getSize() {
+        return publishedSize;
+    }
+    
+    @Override
+    public String getElementAt(int index) {
+        long line = publishedFirstLine + index;
+        if (line < firstLine || line >= endLine) {
+            // Evicted since the last publish; the next one removes the row
+            return "";
+        }
+        int entry = entryFor(line);
+        int slot = slot(entry);
+        return (String) entries[slot].apply((int) (line - startLines[slot]));
+    }
+    
+    /**
+     * Logical index of the entry containing an absolute line number
+     */
+    private int entryFor(long line) {
+        if (lastEntry >= 0 && lastEntry < size && contains(lastEntry, line)) {
+            return lastEntry;
+        }
+        if (lastEntry >= 0 && lastEntry + 1 < size && contains(lastEntry + 1, line)) {
+            return ++lastEntry;
+        }
+        
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (startLines[slot(middle)] <= line) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        lastEntry = low;
+        return low;
+    }
+    
+    private boolean contains(int entry, long line) {
+        int slot = slot(entry);
+        return line >= startLines[slot] && line < startLines[slot] + lineCounts[slot];
+    }
+}
@@ -0,0 +1,227 @@
+package com.tatanav;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Revaluation - Recomputes the NAV of stored records under a new model
+ * A range of history sequences is split into chunks that a fork-join pool
+ * revalues in parallel into one new NAV column; nothing in the store
+ * changes until the caller swaps the column in with replaceNav, so views
+ * never see a mix of old and new NAVs. Each record keeps its own market
+ * noise: the random sample is recovered from the stored NAV under the old
+ * model, or derived from the record when it cannot be. Revaluing is thus
+ * deterministic, and an unchanged model leaves every NAV as it was.
+ *
+ * Chunks copy their records from the store in batches, so records can be
+ * appended or evicted while the job runs; evicted ones are skipped.
+ * cancel() stops every chunk at its next batch.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class Revaluation {
+    
+    private static final int BATCH = 4096;
+    private static final int MIN_CHUNK = 1 << 16;
+    
+    private final ForkJoinPool pool;
+    private final HistoryStore history;
+    private final NavModel oldModel;
+    private final NavModel newModel;
+    private volatile boolean cancelled;
+    
+    /**
+     * New NAVs of the records [firstSequence, firstSequence + count)
+     */
+    static final class Result {
+        final long firstSequence;
+        final int count;
+        final long[] navPaise;
+        final long elapsedNanos;
+        
+        Result(long firstSequence, int count, long[] navPaise, long elapsedNanos) {
+            this.firstSequence = firstSequence;
+            this.count = count;
+            this.navPaise = navPaise;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        long endSequence() {
+            return firstSequence + count;
+        }
+        
+        /**
+         * This result followed by tail, which starts where it ends, or
+         * later if records were evicted in between
+         */
+        Result append(Result tail) {
+            if (tail.firstSequence > endSequence()) {
+                return tail;
+            }
+            long[] joined = Arrays.copyOf(navPaise, count + tail.count);
+            System.arraycopy(tail.navPaise, 0, joined, count, tail.count);
+            return new Result(firstSequence, count + tail.count, joined, elapsedNanos + tail.elapsedNanos);
+        }
+    }
+    
+    /**
+     * @param oldModel the model the stored NAVs were calculated under
+     */
+    Revaluation(ForkJoinPool pool, HistoryStore history, NavModel oldModel, NavModel newModel) {
+        this.pool = pool;
+        this.history = history;
+        this.oldModel = oldModel;
+        this.newModel = newModel;
+    }
+    
+    NavModel newModel() {
+        return newModel;
+    }
+    
+    void cancel() {
+        cancelled = true;
+    }
+    
+    boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Revalue the records [fromSequence, toSequence) still in the store.
+     * progress receives the percentage done as it grows, from pool threads.
+     * Returns null if cancelled.
+     */
+    Result run(long fromSequence, long toSequence, IntConsumer progress) {
+        long start = System.nanoTime();
+        long first = Math.max(fromSequence, history.firstSequence());
+        int count = (int) Math.max(0, toSequence - first);
+        long[] navPaise = new long[count];
+        int chunk = Math.max(MIN_CHUNK, count / (pool.getParallelism() * 8));
+        Chunk all = new Chunk(first, navPaise, 0, count, chunk, new Progress(count, progress));
+        if (count <= chunk) {
+            // Too small to split, such as a tail revalued on the EDT; runs in this thread
+            all.invoke();
+        } else {
+            pool.invoke(all);
+        }
+        return cancelled ? null : new Result(first, count, navPaise, System.nanoTime() - start);
+    }
+    
+    /**
+     * Receives revalued records by symbol id; amounts are in paise
+     */
+    interface Sink {
+        void revalued(int symbolId, long navPaise, long profitLossPaise, double profitLossPercent,
+                      long timestamp);
+    }
+    
+    /**
+     * Feed the revalued records, in order, to a sink, such as statistics
+     * being rebuilt. Records evicted since the run are skipped.
+     */
+    void replay(Result result, Sink sink, IntConsumer progress) {
+        HistoryStore.Batch batch = new HistoryStore.Batch(BATCH);
+        Progress done = new Progress(result.count, progress);
+        long sequence = result.firstSequence;
+        while (sequence < result.endSequence() && !cancelled) {
+            int n = history.copy(sequence, result.endSequence(), batch);
+            if (n == 0) {
+                break;
+            }
+            int offset = (int) (batch.firstSequence - result.firstSequence);
+            for (int i = 0; i < n; i++) {
+                sink.revalued(batch.symbolIds[i], result.navPaise[offset + i], batch.profitLossPaise[i],
+                    batch.profitLossPercent[i], batch.timestamps[i]);
+            }
+            done.add(batch.firstSequence + n - sequence);
+            sequence = batch.firstSequence + n;
+        }
+    }
+    
+    /**
+     * New NAV of one record
+     */
+    long revalue(long buying, long selling, long navPaise, long timestamp) {
+        double sample = oldModel.sampleOf(buying, selling, navPaise, timestamp);
+        if (Double.isNaN(sample)) {
+            sample = NavModel.recordSample(buying, selling, timestamp);
+        }
+        return newModel.navPaise(buying, selling, sample, timestamp);
+    }
+    
+    /**
+     * Shared count of records done, turned into whole percentages
+     */
+    private static final class Progress {
+        private final long total;
+        private final IntConsumer listener;
+        private final AtomicLong done = new AtomicLong();
+        private volatile int reported = -1;
+        
+        Progress(long total, IntConsumer listener) {
+            this.total = total;
+            this.listener = listener;
+        }
+        
+        void add(long records) {
+            int percent = (int) (done.addAndGet(records) * 100 / Math.max(total, 1));
+            if (percent > reported) {
+                reported = percent;
+                listener.accept(percent);
+            }
+        }
+    }
+    
+    /**
+     * Revalues records [from, to) of the range, as offsets from its first
+     * sequence, splitting until a range is small enough
+     */
+    private final class Chunk extends RecursiveAction {
+        private final long firstSequence;
+        private final long[] navPaise;
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final Progress progress;
+        
+        Chunk(long firstSequence, long[] navPaise, int from, int to, int chunk, Progress progress) {
+            this.firstSequence = firstSequence;
+            this.navPaise = navPaise;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.progress = progress;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > chunk) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Chunk(firstSequence, navPaise, from, middle, chunk, progress),
+                    new Chunk(firstSequence, navPaise, middle, to, chunk, progress));
+                return;
+            }
+            
+            HistoryStore.Batch batch = new HistoryStore.Batch(BATCH);
+            long sequence = firstSequence + from;
+            long end = firstSequence + to;
+            while (sequence < end && !cancelled) {
+                int n = history.copy(sequence, end, batch);
+                if (n == 0) {
+                    break;
+                }
+                int offset = (int) (batch.firstSequence - firstSequence);
+                for (int i = 0; i < n; i++) {
+                    navPaise[offset + i] = revalue(batch.buyingPaise[i], batch.sellingPaise[i],
+                        batch.navPaise[i], batch.timestamps[i]);
+                }
+                progress.add(batch.firstSequence + n - sequence);
+                sequence = batch.firstSequence + n;
+            }
+        }
+    }
+}
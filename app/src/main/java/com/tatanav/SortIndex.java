@@ -0,0 +1,90 @@
+package com.tatanav;
+
+import java.util.Arrays;
+
+/**
+ * Sort Index - Primitive sort permutations for history columns
+ * Orders row numbers by 64-bit keys with a stable LSD radix sort, so a
+ * million rows sort in a few passes over int and long arrays without
+ * boxing or comparators. Digits that are equal for every key are skipped,
+ * which makes timestamps and small ranks cheap.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class SortIndex {
+    
+    private static final int DIGIT_BITS = 16;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    
+    private SortIndex() {
+    }
+    
+    /**
+     * Map a double to a long whose unsigned order matches the numeric order
+     */
+    static long doubleKey(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits < 0 ? ~bits : bits | Long.MIN_VALUE;
+    }
+    
+    /**
+     * Map a signed long to a long whose unsigned order matches the signed order
+     */
+    static long signedKey(long value) {
+        return value ^ Long.MIN_VALUE;
+    }
+    
+    /**
+     * Row numbers 0..count-1 ordered by ascending unsigned key; rows with
+     * equal keys keep their original order. The keys array is used as
+     * scratch space and is left in an unspecified order.
+     */
+    static int[] order(long[] keys, int count) {
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = i;
+        }
+        if (count < 2) {
+            return rows;
+        }
+        
+        long differing = 0;
+        for (int i = 1; i < count; i++) {
+            differing |= keys[i] ^ keys[0];
+        }
+        
+        long[] keyBuffer = new long[count];
+        int[] rowBuffer = new int[count];
+        int[] counts = new int[RADIX];
+        for (int shift = 0; shift < Long.SIZE; shift += DIGIT_BITS) {
+            if (((differing >>> shift) & (RADIX - 1)) == 0) {
+                continue;
+            }
+            
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < count; i++) {
+                counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+            }
+            int position = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                int inDigit = counts[digit];
+                counts[digit] = position;
+                position += inDigit;
+            }
+            for (int i = 0; i < count; i++) {
+                int target = counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+                keyBuffer[target] = keys[i];
+                rowBuffer[target] = rows[i];
+            }
+            
+            long[] swapKeys = keys;
+            keys = keyBuffer;
+            keyBuffer = swapKeys;
+            int[] swapRows = rows;
+            rows = rowBuffer;
+            rowBuffer = swapRows;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,85 @@
+package com.tatanav;
+
+import java.util.Arrays;
+
+/**
+ * Symbol NAV Series - Recent NAVs of every symbol, for comparison charts
+ * Keeps a bounded NavSeries per SymbolTable id, created on a symbol's
+ * first calculation, so charting one symbol never scans the others.
+ *
+ * Updated and read on the EDT.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class SymbolNavSeries implements CalculationSink {
+    
+    private final SymbolTable symbols;
+    private final int capacity;
+    private NavSeries[] series = new NavSeries[16];
+    
+    /**
+     * @param capacity values retained per symbol
+     */
+    SymbolNavSeries(SymbolTable symbols, int capacity) {
+        this.symbols = symbols;
+        this.capacity = capacity;
+    }
+    
+    @Override
+    public void record(String stock, long buying, long selling, long nav,
+                       long profitLoss, double profitLossPercent, long timestamp) {
+        add(symbols.idOf(stock), Money.toRupees(nav));
+    }
+    
+    /**
+     * Append a NAV to the series of a symbol id
+     */
+    void add(int symbolId, double nav) {
+        if (symbolId >= series.length) {
+            series = Arrays.copyOf(series, Math.max(symbolId + 1, series.length * 2));
+        }
+        NavSeries values = series[symbolId];
+        if (values == null) {
+            values = new NavSeries(capacity);
+            series[symbolId] = values;
+        }
+        values.append(nav);
+    }
+    
+    /**
+     * Series of a symbol, or null if it has no calculations
+     */
+    NavSeries series(String symbol) {
+        int id = symbols.find(symbol);
+        return id < 0 || id >= series.length ? null : series[id];
+    }
+    
+    /**
+     * Symbols with at least one value, in first-seen order
+     */
+    String[] symbols() {
+        int count = 0;
+        for (NavSeries values : series) {
+            if (values != null && !values.isEmpty()) {
+                count++;
+            }
+        }
+        String[] result = new String[count];
+        int next = 0;
+        for (int id = 0; id < series.length; id++) {
+            if (series[id] != null && !series[id].isEmpty()) {
+                result[next++] = symbols.name(id);
+            }
+        }
+        return result;
+    }
+    
+    void clear() {
+        for (NavSeries values : series) {
+            if (values != null) {
+                values.clear();
+            }
+        }
+    }
+}
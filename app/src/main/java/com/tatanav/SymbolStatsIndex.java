@@ -0,0 +1,179 @@
+package com.tatanav;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Symbol Stats Index - Running per-symbol statistics of every calculation
+ * Keeps count, Welford mean and variance of NAV, min/max NAV and the sums
+ * of profit/loss in primitive columns indexed by SymbolTable id, so each
+ * record is folded in with O(1) work and no allocation. Unlike the history
+ * ring it never evicts: the statistics cover every record since the last
+ * clear, including ones the history no longer holds.
+ *
+ * Updated on the EDT; snapshots may be taken from any thread.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class SymbolStatsIndex implements CalculationSink {
+    
+    private static final int INITIAL_SYMBOLS = 16;
+    
+    private final SymbolTable symbols;
+    
+    // Columns indexed by symbol id
+    private long[] counts = new long[INITIAL_SYMBOLS];
+    private double[] navMean = new double[INITIAL_SYMBOLS];
+    private double[] navM2 = new double[INITIAL_SYMBOLS];
+    private double[] navMin = new double[INITIAL_SYMBOLS];
+    private double[] navMax = new double[INITIAL_SYMBOLS];
+    // Exact, in paise
+    private long[] profitLossSum = new long[INITIAL_SYMBOLS];
+    private double[] profitLossPercentSum = new double[INITIAL_SYMBOLS];
+    private long version;
+    
+    /**
+     * Statistics of one symbol at the time of the snapshot
+     */
+    static final class Stats {
+        final String symbol;
+        final long count;
+        final double meanNav;
+        final double navVariance;
+        final double minNav;
+        final double maxNav;
+        final double totalProfitLoss;
+        final double totalProfitLossPercent;
+        
+        Stats(String symbol, long count, double meanNav, double navVariance, double minNav,
+              double maxNav, double totalProfitLoss, double totalProfitLossPercent) {
+            this.symbol = symbol;
+            this.count = count;
+            this.meanNav = meanNav;
+            this.navVariance = navVariance;
+            this.minNav = minNav;
+            this.maxNav = maxNav;
+            this.totalProfitLoss = totalProfitLoss;
+            this.totalProfitLossPercent = totalProfitLossPercent;
+        }
+        
+        double navStandardDeviation() {
+            return Math.sqrt(navVariance);
+        }
+        
+        double averageProfitLoss() {
+            return totalProfitLoss / count;
+        }
+        
+        double averageProfitLossPercent() {
+            return totalProfitLossPercent / count;
+        }
+    }
+    
+    SymbolStatsIndex(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+    
+    @Override
+    public void record(String stock, long buying, long selling, long nav,
+                       long profitLoss, double profitLossPercent, long timestamp) {
+        add(symbols.idOf(stock), nav, profitLoss, profitLossPercent);
+    }
+    
+    /**
+     * Fold one record, with NAV and profit/loss in paise, into the
+     * statistics of a symbol id
+     */
+    synchronized void add(int symbolId, long navPaise, long profitLoss, double profitLossPercent) {
+        if (symbolId >= counts.length) {
+            grow(symbolId + 1);
+        }
+        double nav = Money.toRupees(navPaise);
+        
+        long n = ++counts[symbolId];
+        double delta = nav - navMean[symbolId];
+        navMean[symbolId] += delta / n;
+        navM2[symbolId] += delta * (nav - navMean[symbolId]);
+        if (n == 1) {
+            navMin[symbolId] = nav;
+            navMax[symbolId] = nav;
+        } else {
+            navMin[symbolId] = Math.min(navMin[symbolId], nav);
+            navMax[symbolId] = Math.max(navMax[symbolId], nav);
+        }
+        profitLossSum[symbolId] += profitLoss;
+        profitLossPercentSum[symbolId] += profitLossPercent;
+        version++;
+    }
+    
+    private void grow(int minimum) {
+        int length = Math.max(minimum, counts.length * 2);
+        counts = Arrays.copyOf(counts, length);
+        navMean = Arrays.copyOf(navMean, length);
+        navM2 = Arrays.copyOf(navM2, length);
+        navMin = Arrays.copyOf(navMin, length);
+        navMax = Arrays.copyOf(navMax, length);
+        profitLossSum = Arrays.copyOf(profitLossSum, length);
+        profitLossPercentSum = Arrays.copyOf(profitLossPercentSum, length);
+    }
+    
+    synchronized void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(navMean, 0);
+        Arrays.fill(navM2, 0);
+        Arrays.fill(profitLossSum, 0);
+        Arrays.fill(profitLossPercentSum, 0);
+        version++;
+    }
+    
+    /**
+     * Take over the statistics of another index over the same symbols,
+     * such as one rebuilt in the background, in one step
+     */
+    synchronized void replaceWith(SymbolStatsIndex rebuilt) {
+        counts = rebuilt.counts;
+        navMean = rebuilt.navMean;
+        navM2 = rebuilt.navM2;
+        navMin = rebuilt.navMin;
+        navMax = rebuilt.navMax;
+        profitLossSum = rebuilt.profitLossSum;
+        profitLossPercentSum = rebuilt.profitLossPercentSum;
+        version++;
+    }
+    
+    /**
+     * Changes on every update; lets views skip refreshing unchanged stats
+     */
+    synchronized long version() {
+        return version;
+    }
+    
+    /**
+     * Statistics of one symbol, or null if it has no records
+     */
+    synchronized Stats get(String symbol) {
+        int id = symbols.find(symbol);
+        return id < 0 || id >= counts.length || counts[id] == 0 ? null : stats(id);
+    }
+    
+    /**
+     * Statistics of every symbol with records, in first-seen order
+     */
+    synchronized List<Stats> snapshot() {
+        List<Stats> result = new ArrayList<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                result.add(stats(id));
+            }
+        }
+        return result;
+    }
+    
+    private Stats stats(int id) {
+        long n = counts[id];
+        return new Stats(symbols.name(id), n, navMean[id], n > 1 ? navM2[id] / (n - 1) : 0,
+            navMin[id], navMax[id], Money.toRupees(profitLossSum[id]), profitLossPercentSum[id]);
+    }
+}
@@ -0,0 +1,67 @@
+package com.tatanav;
+
+import java.util.Collections;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Symbol Stats Table Model - One row of running statistics per symbol
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class SymbolStatsTableModel extends AbstractTableModel {
+    
+    private static final String[] COLUMN_NAMES = {
+        "Stock", "Count", "Mean NAV", "NAV Std Dev", "Min NAV", "Max NAV",
+        "Total P/L", "Avg P/L", "Avg P/L %"
+    };
+    
+    private List<SymbolStatsIndex.Stats> stats = Collections.emptyList();
+    
+    void setStats(List<SymbolStatsIndex.Stats> stats) {
+        this.stats = stats;
+        fireTableDataChanged();
+    }
+    
+    @Override
+    public int getRowCount() {
+        return stats.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 0: return String.class;
+            case 1: return Long.class;
+            default: return Double.class;
+        }
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        SymbolStatsIndex.Stats s = stats.get(row);
+        switch (column) {
+            case 0: return s.symbol;
+            case 1: return s.count;
+            case 2: return s.meanNav;
+            case 3: return s.navStandardDeviation();
+            case 4: return s.minNav;
+            case 5: return s.maxNav;
+            case 6: return s.totalProfitLoss;
+            case 7: return s.averageProfitLoss();
+            case 8: return s.averageProfitLossPercent();
+            default: return null;
+        }
+    }
+}
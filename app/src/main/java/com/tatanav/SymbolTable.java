@@ -0,0 +1,60 @@
+package com.tatanav;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Symbol Table - Dictionary encoding of stock symbols to dense int ids
+ * Ids are assigned in first-seen order and never reused, so columns can
+ * store an int per record instead of a String reference
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class SymbolTable {
+    
+    private final Map<String, Integer> ids = new HashMap<>();
+    private volatile String[] names = new String[16];
+    private volatile int count;
+    
+    /**
+     * Return the id for a symbol, assigning the next free id if it is new
+     */
+    synchronized int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        
+        int next = count;
+        String[] current = names;
+        if (next == current.length) {
+            current = Arrays.copyOf(current, next * 2);
+        }
+        current[next] = symbol;
+        names = current;
+        ids.put(symbol, next);
+        count = next + 1;
+        return next;
+    }
+    
+    /**
+     * Look up an existing id without assigning one, or -1 if unknown
+     */
+    synchronized int find(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+    
+    /**
+     * Symbol for an id; safe to call from any thread
+     */
+    String name(int id) {
+        return names[id];
+    }
+    
+    int size() {
+        return count;
+    }
+}
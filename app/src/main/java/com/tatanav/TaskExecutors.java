@@ -0,0 +1,50 @@
+package com.tatanav;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Task Executors - Thread-per-task executors for background work
+ * Uses virtual threads when the running JDK has them (21+) and falls
+ * back to a cached pool of daemon platform threads otherwise, so the
+ * application still runs on older JDKs
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class TaskExecutors {
+    
+    private TaskExecutors() {
+    }
+    
+    /**
+     * New executor that starts one (virtual if possible) thread per task
+     */
+    static ExecutorService newPerTaskExecutor(String name) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+    
+    /**
+     * Whether newPerTaskExecutor hands out virtual threads on this JDK
+     */
+    static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
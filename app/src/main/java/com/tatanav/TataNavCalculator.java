@@ -0,0 +1,2032 @@
+package com.tatanav;
+
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+import java.util.prefs.Preferences;
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+
+/**
+ * Tata Nav Calculator - A comprehensive stock NAV calculation application
+ * Features: Real-time calculations, graphical visualization, and navigation
+ * 
+ * @author Development Team
+ * @version 2.0
+ */
+public class TataNavCalculator extends JFrame {
+    
+    // Constants
+    private static final int WINDOW_WIDTH = 900;
+    private static final int WINDOW_HEIGHT = 700;
+    private static final int MAX_HISTORY_SIZE = 1000000;
+    private static final int HISTORY_CAPACITY = Integer.getInteger("nav.history.capacity", MAX_HISTORY_SIZE);
+    private static final int BAR_CAPACITY = Integer.getInteger("nav.bars.capacity", 2000);
+    private static final int SERIES_CAPACITY = Integer.getInteger("nav.series.capacity", 5000);
+    private static final String FEED_SOURCE = System.getProperty("nav.feed.source");
+    private static final String FEED_POLICY = System.getProperty("nav.feed.policy", "COALESCE");
+    private static final int FEED_QUEUE_CAPACITY = Integer.getInteger("nav.feed.queueCapacity", 65536);
+    private static final int FEED_BATCH_SIZE = 8192;
+    private static final String PREF_FEED_SOURCE = "feedSource";
+    private static final long WATCHDOG_THRESHOLD_MILLIS = Long.getLong("nav.watchdog.thresholdMillis", 500);
+    private static final String WATCHDOG_LOG_PATH = System.getProperty("nav.watchdog.log",
+        System.getProperty("user.home") + File.separator + ".tatanav" + File.separator + "edt-stalls.log");
+    private static final String METRICS_DUMP_PATH = System.getProperty("nav.metrics.dump");
+    // A negative port leaves the local API off; 0 picks a free port
+    private static final int API_PORT = Integer.getInteger("nav.api.port", -1);
+    private static final String API_BIND = System.getProperty("nav.api.bind", "127.0.0.1");
+    private static final String PORTFOLIO_PATH = System.getProperty("nav.portfolio");
+    private static final String PREF_PORTFOLIO_PATH = "portfolioPath";
+    private static final String[] PORTFOLIO_LEGEND = {"Portfolio NAV"};
+    private static final int UI_REFRESH_HZ = Integer.getInteger("nav.ui.refreshHz", 60);
+    private static final int RESULTS_LOG_CAPACITY = Integer.getInteger("nav.results.capacity", 500);
+    // Close once the first frame is painted, printing the startup time;
+    // used to measure startup and to train the AppCDS archive
+    private static final boolean EXIT_AFTER_FIRST_FRAME = Boolean.getBoolean("nav.startup.exitAfterFirstFrame");
+    // Class initialization runs just before main
+    private static final long LAUNCH_NANOS = System.nanoTime();
+    static final int RESULT_LINES = 12;
+    private static final int SIMULATION_LINES = 14;
+    private static final String BOX_TOP = "╔══════════════════════════════════════╗";
+    private static final String BOX_RULE = "╠══════════════════════════════════════╣";
+    private static final String BOX_BOTTOM = "╚══════════════════════════════════════╝";
+    private static final String JOURNAL_PATH = System.getProperty("nav.journal.path",
+        System.getProperty("user.home") + File.separator + ".tatanav" + File.separator + "calculations.journal");
+    private static final int JOURNAL_SYNC_EVERY = Integer.getInteger("nav.journal.syncEvery", 64);
+    private static final long JOURNAL_SYNC_MILLIS = Long.getLong("nav.journal.syncMillis", 1000L);
+    private static final String PREF_AUTO_SAVE = "autoSaveResults";
+    private static final String PREF_NAV_MODEL = "navModel";
+    private static final int REVALUATION_TAIL_LIMIT = 8192;
+    private static final long SIMULATION_PATHS = Long.getLong("nav.simulation.paths", 1000000L);
+    private static final long SIMULATION_HORIZON_MILLIS = Long.getLong("nav.simulation.horizonMillis", 22500000L);
+    static final Color PRIMARY_COLOR = new Color(70, 130, 180);
+    private static final Color SECONDARY_COLOR = new Color(240, 248, 255);
+    static final Color SUCCESS_COLOR = new Color(34, 139, 34);
+    static final Color ERROR_COLOR = new Color(220, 20, 60);
+    
+    // UI Components
+    private JTextField stockField;
+    private JTextField buyingField;
+    private JTextField sellingField;
+    private JList<String> resultList;
+    private ResultsLog resultsLog;
+    private JPanel graphSlot;
+    private GraphPanel graphPanel;
+    private JLabel navLabel;
+    private JLabel statusLabel;
+    private JProgressBar calculationProgress;
+    private JButton cancelRevaluationButton;
+    
+    // Data
+    private HistoryStore navHistory;
+    private SymbolStatsIndex symbolStats;
+    private BarAggregator barAggregator;
+    private SymbolNavSeries symbolSeries;
+    private Portfolio portfolio;
+    private NavSeries portfolioSeries;
+    private long portfolioVersion;
+    private boolean portfolioChart;
+    private BarInterval candleInterval;
+    private ButtonGroup chartModeGroup;
+    private String[] comparedSymbols;
+    private NavSeries[] comparedSeries;
+    private boolean comparedSharedScale = true;
+    private String chartSymbol;
+    private TickFeed tickFeed;
+    private long feedTicks;
+    private long feedStatusTicks;
+    private long feedStatusMillis;
+    private SimpleDateFormat dateFormat;
+    private boolean sampleDataShown;
+    private long firstFrameNanos;
+    private CalculationJournal journal;
+    private SwingWorker<Void, Void> journalRewrite;
+    private CalculationJournal rewritingJournal;
+    private long rewrittenEnd;
+    private AtomicBoolean journalRewriteStop;
+    private boolean journalRewriteAgain;
+    private boolean closeAfterJournalRewrite;
+    private Revaluation revaluation;
+    private HistoryDialog historyDialog;
+    private final UiRefresher uiRefresher = new UiRefresher(UI_REFRESH_HZ, this::refreshDisplays);
+    private long displayedNav;
+    private String pendingStatus;
+    private final Preferences preferences = Preferences.userRoot().node("tatanav");
+    private final Metrics metrics = new Metrics();
+    private MetricsPanel metricsPanel;
+    private EdtWatchdog edtWatchdog;
+    private NavApiServer apiServer;
+    private final CalculationPipeline calculationPipeline = new CalculationPipeline(
+        this::completeCalculation, this::calculationFailed, metrics);
+    
+    /**
+     * Data class carrying a single calculation result to the display;
+     * amounts are in paise
+     */
+    static class NavCalculation {
+        final String stock;
+        final long buying;
+        final long selling;
+        final long nav;
+        final long profitLoss;
+        final double profitLossPercent;
+        final long timestamp;
+        
+        NavCalculation(String stock, long buying, long selling, long nav, 
+                      long profitLoss, double profitLossPercent, long timestamp) {
+            this.stock = stock;
+            this.buying = buying;
+            this.selling = selling;
+            this.nav = nav;
+            this.profitLoss = profitLoss;
+            this.profitLossPercent = profitLossPercent;
+            this.timestamp = timestamp;
+        }
+    }
+    
+    /**
+     * Statistics, bars and series rebuilt from a revalued history, ready to
+     * take the place of the ones shown
+     */
+    private static final class RevaluedHistory {
+        Revaluation.Result result;
+        final SymbolStatsIndex stats;
+        final BarAggregator bars;
+        final SymbolNavSeries series;
+        
+        RevaluedHistory(Revaluation.Result result, SymbolTable symbols) {
+            this.result = result;
+            this.stats = new SymbolStatsIndex(symbols);
+            this.bars = new BarAggregator(symbols, BAR_CAPACITY);
+            this.series = new SymbolNavSeries(symbols, SERIES_CAPACITY);
+        }
+        
+        void revalued(int symbolId, long nav, long profitLoss, double profitLossPercent, long timestamp) {
+            stats.add(symbolId, nav, profitLoss, profitLossPercent);
+            bars.add(symbolId, nav, timestamp);
+            series.add(symbolId, Money.toRupees(nav));
+        }
+    }
+    
+    /**
+     * Constructor - Initialize the application
+     */
+    public TataNavCalculator() {
+        NavModel model = NavModel.decode(preferences.get(PREF_NAV_MODEL, null));
+        if (model != null) {
+            NavEngine.setModel(model);
+        }
+        navHistory = new HistoryStore(HISTORY_CAPACITY, new SymbolTable());
+        symbolStats = new SymbolStatsIndex(navHistory.symbols());
+        barAggregator = new BarAggregator(navHistory.symbols(), BAR_CAPACITY);
+        symbolSeries = new SymbolNavSeries(navHistory.symbols(), SERIES_CAPACITY);
+        portfolio = new Portfolio(navHistory.symbols());
+        portfolioSeries = new NavSeries(SERIES_CAPACITY);
+        dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        
+        initializeComponents();
+        setupLayout();
+        setupEventHandlers();
+        setupWindow();
+        
+        if (preferences.getBoolean(PREF_AUTO_SAVE, true)) {
+            openJournal(true);
+        }
+        String portfolioPath = PORTFOLIO_PATH != null ? PORTFOLIO_PATH : preferences.get(PREF_PORTFOLIO_PATH, null);
+        if (portfolioPath != null) {
+            loadPortfolio(Paths.get(portfolioPath));
+        }
+        if (FEED_SOURCE != null) {
+            startTickFeed(FEED_SOURCE);
+        }
+        
+        // A threshold of 0 turns the stall watchdog off
+        if (WATCHDOG_THRESHOLD_MILLIS > 0) {
+            edtWatchdog = new EdtWatchdog(WATCHDOG_THRESHOLD_MILLIS, Paths.get(WATCHDOG_LOG_PATH),
+                metrics, this::updateStatus);
+            edtWatchdog.start();
+        }
+        if (API_PORT >= 0) {
+            startApiServer();
+        }
+    }
+    
+    /**
+     * Initialize all UI components
+     */
+    private void initializeComponents() {
+        // Input fields with improved styling
+        stockField = createStyledTextField(20);
+        buyingField = createStyledTextField(10);
+        sellingField = createStyledTextField(10);
+        
+        // Set default values
+        buyingField.setText("100.00");
+        sellingField.setText("120.00");
+        
+        // Result display area; the prototype fixes the cell size so only
+        // visible rows are ever formatted
+        resultsLog = new ResultsLog(RESULTS_LOG_CAPACITY);
+        resultList = new JList<>(resultsLog);
+        resultList.setFont(new Font("Consolas", Font.PLAIN, 12));
+        resultList.setBackground(SECONDARY_COLOR);
+        resultList.setPrototypeCellValue(BOX_TOP);
+        resultList.setVisibleRowCount(8);
+        resultList.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createTitledBorder("Calculation Results"),
+            new EmptyBorder(10, 10, 10, 10)
+        ));
+        
+        // NAV display label
+        navLabel = new JLabel("Current NAV: ₹0.00", SwingConstants.CENTER);
+        navLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        navLabel.setForeground(SUCCESS_COLOR);
+        navLabel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        
+        // Status label
+        statusLabel = new JLabel("Ready for calculation", SwingConstants.CENTER);
+        statusLabel.setFont(new Font("Arial", Font.ITALIC, 12));
+        statusLabel.setForeground(Color.GRAY);
+        
+        // Progress bar
+        calculationProgress = new JProgressBar();
+        calculationProgress.setVisible(false);
+        calculationProgress.setStringPainted(true);
+        cancelRevaluationButton = new JButton("Cancel");
+        cancelRevaluationButton.setVisible(false);
+        cancelRevaluationButton.addActionListener(e -> cancelRevaluation());
+        
+        // Holds the place of the graph, which is built after the first frame
+        graphSlot = new JPanel(new BorderLayout());
+        graphSlot.setPreferredSize(new Dimension(450, 300));
+        
+        // Live latency summary beside the status line
+        metricsPanel = new MetricsPanel(metrics, this::updateStatus);
+    }
+    
+    /**
+     * Build the graph panel and its menu once the window is showing. Until
+     * then calculations only go into the history, which the new graph is
+     * filled from; with no history it shows the sample data.
+     */
+    private void buildGraphPanel() {
+        graphPanel = new GraphPanel(HISTORY_CAPACITY);
+        graphPanel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createTitledBorder("NAV Trend Graph"),
+            new EmptyBorder(10, 10, 10, 10)
+        ));
+        graphPanel.setComponentPopupMenu(createChartMenu());
+        graphPanel.setMetrics(metrics);
+        graphSlot.add(graphPanel, BorderLayout.CENTER);
+        graphSlot.revalidate();
+        
+        if (navHistory.size() > 0) {
+            updateGraph();
+        } else {
+            addSampleData();
+        }
+        updateChartMode();
+    }
+    
+    /**
+     * Popup menu switching the graph between the line chart, candlesticks
+     * and a comparison of several symbols
+     */
+    private JPopupMenu createChartMenu() {
+        JPopupMenu menu = new JPopupMenu();
+        ButtonGroup group = new ButtonGroup();
+        chartModeGroup = group;
+        
+        JRadioButtonMenuItem line = new JRadioButtonMenuItem("Line", true);
+        line.addActionListener(e -> setCandleInterval(null));
+        group.add(line);
+        menu.add(line);
+        menu.addSeparator();
+        
+        for (BarInterval interval : BarInterval.values()) {
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem("Candlesticks " + interval.label);
+            item.addActionListener(e -> setCandleInterval(interval));
+            group.add(item);
+            menu.add(item);
+        }
+        menu.addSeparator();
+        
+        JRadioButtonMenuItem portfolioItem = new JRadioButtonMenuItem("Portfolio NAV");
+        portfolioItem.addActionListener(e -> {
+            setCandleInterval(null);
+            portfolioChart = true;
+            updateChartMode();
+        });
+        group.add(portfolioItem);
+        menu.add(portfolioItem);
+        menu.addSeparator();
+        
+        JMenuItem compare = new JMenuItem("Compare Symbols...");
+        compare.addActionListener(e -> chooseComparison());
+        menu.add(compare);
+        return menu;
+    }
+    
+    private void setCandleInterval(BarInterval interval) {
+        candleInterval = interval;
+        portfolioChart = false;
+        comparedSymbols = null;
+        comparedSeries = null;
+        updateChartMode();
+    }
+    
+    /**
+     * Let the user pick the symbols to chart side by side
+     */
+    private void chooseComparison() {
+        String[] symbols = symbolSeries.symbols();
+        if (symbols.length == 0) {
+            showError("No calculations to compare yet");
+            return;
+        }
+        
+        JList<String> list = new JList<>(symbols);
+        list.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        list.setVisibleRowCount(12);
+        if (comparedSymbols != null) {
+            List<Integer> selected = new ArrayList<>();
+            for (int i = 0; i < symbols.length; i++) {
+                for (String symbol : comparedSymbols) {
+                    if (symbol.equals(symbols[i])) {
+                        selected.add(i);
+                    }
+                }
+            }
+            list.setSelectedIndices(selected.stream().mapToInt(Integer::intValue).toArray());
+        } else {
+            list.setSelectionInterval(0, Math.min(symbols.length, 10) - 1);
+        }
+        JCheckBox sharedScale = new JCheckBox("Shared NAV scale", comparedSharedScale);
+        
+        JPanel panel = new JPanel(new BorderLayout(0, 8));
+        panel.add(new JLabel("Symbols to compare (Ctrl/Shift-click for several):"), BorderLayout.NORTH);
+        panel.add(new JScrollPane(list), BorderLayout.CENTER);
+        panel.add(sharedScale, BorderLayout.SOUTH);
+        int result = JOptionPane.showConfirmDialog(this, panel, "Compare Symbols",
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION || list.isSelectionEmpty()) {
+            return;
+        }
+        
+        List<String> chosen = list.getSelectedValuesList();
+        comparedSymbols = chosen.toArray(new String[0]);
+        comparedSeries = new NavSeries[comparedSymbols.length];
+        for (int i = 0; i < comparedSymbols.length; i++) {
+            comparedSeries[i] = symbolSeries.series(comparedSymbols[i]);
+        }
+        comparedSharedScale = sharedScale.isSelected();
+        portfolioChart = false;
+        chartModeGroup.clearSelection();
+        updateChartMode();
+    }
+    
+    /**
+     * Show the portfolio or the compared symbols, or point candlestick mode
+     * at the bars of the most recently calculated symbol
+     */
+    private void updateChartMode() {
+        if (graphPanel == null) {
+            return;
+        }
+        if (portfolioChart) {
+            graphPanel.showComparison(PORTFOLIO_LEGEND, new NavSeries[] {portfolioSeries}, true);
+            return;
+        }
+        if (comparedSymbols != null) {
+            graphPanel.showComparison(comparedSymbols, comparedSeries, comparedSharedScale);
+            return;
+        }
+        if (candleInterval == null || chartSymbol == null) {
+            graphPanel.showLine();
+            return;
+        }
+        OhlcSeries bars = barAggregator.series(chartSymbol, candleInterval);
+        if (bars == null) {
+            graphPanel.showLine();
+        } else {
+            graphPanel.showCandles(bars, chartSymbol);
+        }
+    }
+    
+    /**
+     * Create styled text field
+     */
+    private JTextField createStyledTextField(int columns) {
+        JTextField field = new JTextField(columns);
+        field.setFont(new Font("Arial", Font.PLAIN, 14));
+        field.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLoweredBevelBorder(),
+            new EmptyBorder(5, 8, 5, 8)
+        ));
+        return field;
+    }
+    
+    /**
+     * Setup the main layout
+     */
+    private void setupLayout() {
+        // The first paint of the content pane is the first frame
+        setContentPane(new JPanel() {
+            @Override
+            public void paint(Graphics g) {
+                super.paint(g);
+                if (firstFrameNanos == 0) {
+                    firstFrameNanos = System.nanoTime();
+                    SwingUtilities.invokeLater(TataNavCalculator.this::finishStartup);
+                }
+            }
+        });
+        setLayout(new BorderLayout(10, 10));
+        
+        // Create main panels
+        add(createTitlePanel(), BorderLayout.NORTH);
+        add(createMainContentPanel(), BorderLayout.CENTER);
+        add(createNavigationPanel(), BorderLayout.SOUTH);
+        
+        // Add padding around the main content
+        ((JComponent) getContentPane()).setBorder(new EmptyBorder(10, 10, 10, 10));
+    }
+    
+    
+    
+    private JPanel createTitlePanel() {
+        JPanel titlePanel = new JPanel(new BorderLayout());
+        titlePanel.setBackground(PRIMARY_COLOR);
+        titlePanel.setBorder(new EmptyBorder(15, 20, 15, 20));
+        
+        JLabel titleLabel = new JLabel("Tata Nav Calculator", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 28));
+        titleLabel.setForeground(Color.WHITE);
+        
+        JLabel subtitleLabel = new JLabel("Professional Stock NAV Analysis Tool", SwingConstants.CENTER);
+        subtitleLabel.setFont(new Font("Arial", Font.ITALIC, 14));
+        subtitleLabel.setForeground(new Color(220, 220, 220));
+        
+        titlePanel.add(titleLabel, BorderLayout.CENTER);
+        titlePanel.add(subtitleLabel, BorderLayout.SOUTH);
+        
+        return titlePanel;
+    }
+    
+    /**
+     * Create main content panel
+     */
+    private JPanel createMainContentPanel() {
+        JPanel mainPanel = new JPanel(new BorderLayout(15, 15));
+        
+        // Left panel with input and results
+        JPanel leftPanel = new JPanel(new BorderLayout(10, 10));
+        leftPanel.add(createInputPanel(), BorderLayout.NORTH);
+        leftPanel.add(createResultsPanel(), BorderLayout.CENTER);
+        leftPanel.add(createStatusPanel(), BorderLayout.SOUTH);
+        
+        // Right panel with graph
+        JPanel rightPanel = new JPanel(new BorderLayout());
+        rightPanel.add(graphSlot, BorderLayout.CENTER);
+        
+        mainPanel.add(leftPanel, BorderLayout.WEST);
+        mainPanel.add(rightPanel, BorderLayout.CENTER);
+        
+        return mainPanel;
+    }
+    
+    /**
+     * Create input panel
+     */
+    private JPanel createInputPanel() {
+        JPanel inputPanel = new JPanel(new GridBagLayout());
+        inputPanel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createTitledBorder("Stock Information"),
+            new EmptyBorder(15, 15, 15, 15)
+        ));
+        inputPanel.setBackground(SECONDARY_COLOR);
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(8, 8, 8, 8);
+        gbc.anchor = GridBagConstraints.WEST;
+        
+        // Stock field
+        gbc.gridx = 0; gbc.gridy = 0;
+        inputPanel.add(createStyledLabel("Stock Symbol:"), gbc);
+        gbc.gridx = 1;
+        inputPanel.add(stockField, gbc);
+        
+        // Buying field
+        gbc.gridx = 0; gbc.gridy = 1;
+        inputPanel.add(createStyledLabel("Buying Price (₹):"), gbc);
+        gbc.gridx = 1;
+        inputPanel.add(buyingField, gbc);
+        
+        // Selling field
+        gbc.gridx = 0; gbc.gridy = 2;
+        inputPanel.add(createStyledLabel("Selling Price (₹):"), gbc);
+        gbc.gridx = 1;
+        inputPanel.add(sellingField, gbc);
+        
+        // Submit button
+        JButton submitButton = createStyledButton("Calculate NAV", PRIMARY_COLOR);
+        submitButton.addActionListener(new CalculateAction());
+        gbc.gridx = 0; gbc.gridy = 3;
+        gbc.gridwidth = 2;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(15, 8, 8, 8);
+        inputPanel.add(submitButton, gbc);
+        
+        // Progress bar, with a cancel button while the history is revalued
+        JPanel progressRow = new JPanel(new BorderLayout(5, 0));
+        progressRow.setOpaque(false);
+        progressRow.add(calculationProgress, BorderLayout.CENTER);
+        progressRow.add(cancelRevaluationButton, BorderLayout.EAST);
+        gbc.gridy = 4;
+        gbc.insets = new Insets(5, 8, 8, 8);
+        inputPanel.add(progressRow, gbc);
+        
+        return inputPanel;
+    }
+    
+    /**
+     * Create styled label
+     */
+    private JLabel createStyledLabel(String text) {
+        JLabel label = new JLabel(text);
+        label.setFont(new Font("Arial", Font.BOLD, 14));
+        label.setForeground(new Color(60, 60, 60));
+        return label;
+    }
+    
+    /**
+     * Create styled button
+     */
+    private JButton createStyledButton(String text, Color backgroundColor) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Arial", Font.BOLD, 14));
+        button.setBackground(backgroundColor);
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        button.setBorderPainted(false);
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        button.setPreferredSize(new Dimension(150, 35));
+        return button;
+    }
+    
+    /**
+     * Create results panel
+     */
+    private JPanel createResultsPanel() {
+        JPanel resultsPanel = new JPanel(new BorderLayout());
+        resultsPanel.add(new JScrollPane(resultList), BorderLayout.CENTER);
+        return resultsPanel;
+    }
+    
+    /**
+     * Create status panel
+     */
+    private JPanel createStatusPanel() {
+        JPanel statusPanel = new JPanel(new BorderLayout(10, 10));
+        statusPanel.setBorder(new EmptyBorder(10, 0, 0, 0));
+        
+        JPanel statusLine = new JPanel(new BorderLayout(10, 0));
+        statusLine.add(statusLabel, BorderLayout.CENTER);
+        statusLine.add(metricsPanel, BorderLayout.EAST);
+        
+        statusPanel.add(navLabel, BorderLayout.NORTH);
+        statusPanel.add(statusLine, BorderLayout.SOUTH);
+        
+        return statusPanel;
+    }
+    
+    /**
+     * Create navigation panel
+     */
+    private JPanel createNavigationPanel() {
+        JPanel navPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
+        navPanel.setBackground(new Color(248, 248, 248));
+        navPanel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createRaisedBevelBorder(),
+            new EmptyBorder(10, 10, 10, 10)
+        ));
+        
+        // Create navigation buttons
+        JButton homeButton = createStyledButton("🏠 Home", new Color(100, 149, 237));
+        JButton historyButton = createStyledButton("📊 History", new Color(60, 179, 113));
+        JButton settingsButton = createStyledButton("⚙️ Settings", new Color(255, 140, 0));
+        JButton clearButton = createStyledButton("🗑️ Clear", new Color(220, 20, 60));
+        JButton exportButton = createStyledButton("📤 Export", new Color(138, 43, 226));
+        JButton simulateButton = createStyledButton("🎲 Simulate", new Color(0, 128, 128));
+        
+        // Add action listeners
+        homeButton.addActionListener(e -> resetToHome());
+        historyButton.addActionListener(e -> showHistory());
+        settingsButton.addActionListener(e -> showSettings());
+        clearButton.addActionListener(e -> clearAll());
+        exportButton.addActionListener(e -> exportData());
+        simulateButton.addActionListener(e -> runSimulation());
+        
+        // Add buttons to panel
+        navPanel.add(homeButton);
+        navPanel.add(historyButton);
+        navPanel.add(settingsButton);
+        navPanel.add(clearButton);
+        navPanel.add(exportButton);
+        navPanel.add(simulateButton);
+        
+        return navPanel;
+    }
+    
+    /**
+     * Setup event handlers
+     */
+    private void setupEventHandlers() {
+        // Add key listeners for Enter key submission
+        KeyAdapter enterKeyListener = new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    new CalculateAction().actionPerformed(null);
+                }
+            }
+        };
+        
+        stockField.addKeyListener(enterKeyListener);
+        buyingField.addKeyListener(enterKeyListener);
+        sellingField.addKeyListener(enterKeyListener);
+        
+        // Add input validation
+        addNumericValidation(buyingField);
+        addNumericValidation(sellingField);
+    }
+    
+    /**
+     * Add numeric validation to text field
+     */
+    private void addNumericValidation(JTextField field) {
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyTyped(KeyEvent e) {
+                char c = e.getKeyChar();
+                if (!Character.isDigit(c) && c != '.' && c != KeyEvent.VK_BACK_SPACE) {
+                    e.consume();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Setup window properties
+     */
+    private void setupWindow() {
+        setTitle("Tata Nav Calculator v2.0");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+        setLocationRelativeTo(null);
+        setResizable(true);
+        setMinimumSize(new Dimension(800, 600));
+        
+        // Flush the journal before the JVM exits
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                stopTickFeed();
+                cancelRevaluation();
+                calculationPipeline.shutdown();
+                metricsPanel.stop();
+                if (edtWatchdog != null) {
+                    edtWatchdog.stop();
+                }
+                if (apiServer != null) {
+                    apiServer.stop();
+                }
+                dumpMetricsOnExit();
+                joinJournalRewrite();
+                closeJournal();
+            }
+        });
+        
+        // Set application icon (if available)
+        try {
+            // You can add an icon here if you have one
+            // setIconImage(ImageIO.read(new File("icon.png")));
+        } catch (Exception e) {
+            // Icon not found, continue without it
+        }
+    }
+    
+    /**
+     * Open the calculation journal. At startup it is replayed into the history
+     * and graph; when enabled later it is restarted from the current history.
+     */
+    private void openJournal(boolean restore) {
+        try {
+            long start = System.nanoTime();
+            journal = new CalculationJournal(Paths.get(JOURNAL_PATH), JOURNAL_SYNC_EVERY, JOURNAL_SYNC_MILLIS);
+            if (!restore) {
+                // Written from the current history in the background
+                rewriteJournal();
+                return;
+            }
+            
+            long restored = journal.replay((stock, buying, selling, nav, pl, plPercent, timestamp) -> {
+                navHistory.append(stock, buying, selling, nav, pl, plPercent, timestamp);
+                symbolStats.record(stock, buying, selling, nav, pl, plPercent, timestamp);
+                barAggregator.record(stock, buying, selling, nav, pl, plPercent, timestamp);
+                symbolSeries.record(stock, buying, selling, nav, pl, plPercent, timestamp);
+                chartSymbol = stock;
+            });
+            long elapsed = (System.nanoTime() - start) / 1000000;
+            if (restored > 0) {
+                updateGraph();
+                updateStatus("Restored " + restored + " calculations from journal in " + elapsed + " ms");
+            }
+        } catch (IOException e) {
+            journal = null;
+            updateStatus("Auto-save unavailable: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Append a completed calculation to the journal when auto-save is on
+     */
+    private void journalCalculation(NavCalculation calc) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(calc.stock, calc.buying, calc.selling, calc.nav,
+                calc.profitLoss, calc.profitLossPercent, calc.timestamp);
+        } catch (IOException e) {
+            closeJournal();
+            showError("Auto-save disabled, journal write failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Serve the NAV model, history and stats over local HTTP. Calculations
+     * made through the API are not recorded, so the window's history only
+     * holds what was entered here.
+     */
+    private void startApiServer() {
+        try {
+            apiServer = new NavApiServer(new InetSocketAddress(API_BIND, API_PORT), navHistory, symbolStats,
+                (stock, buying, selling, nav, pl, plPercent, timestamp) -> { }, metrics);
+            apiServer.start();
+            updateStatus("NAV API listening on http://" + API_BIND + ":" + apiServer.port() + "/api");
+        } catch (IOException | RuntimeException e) {
+            apiServer = null;
+            updateStatus("NAV API unavailable: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Write the metrics report to nav.metrics.dump, if set, when the window closes
+     */
+    private void dumpMetricsOnExit() {
+        if (METRICS_DUMP_PATH == null) {
+            return;
+        }
+        try {
+            metrics.dump(Paths.get(METRICS_DUMP_PATH));
+        } catch (IOException e) {
+            System.err.println("Could not write metrics: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Sync and close the journal
+     */
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Could not close journal: " + e.getMessage());
+        }
+        journal = null;
+    }
+    
+    /**
+     * Add sample data for demonstration
+     */
+    private void addSampleData() {
+        List<Double> sampleData = new ArrayList<>();
+        sampleData.add(95.5);
+        sampleData.add(98.2);
+        sampleData.add(102.1);
+        sampleData.add(99.8);
+        sampleData.add(105.3);
+        sampleData.add(108.7);
+        sampleData.add(103.2);
+        
+        graphPanel.updateData(sampleData);
+        sampleDataShown = true;
+    }
+    
+    /**
+     * Build what was left out of the first frame and record how long the
+     * frame took to appear, from JVM start and from main
+     */
+    private void finishStartup() {
+        buildGraphPanel();
+        
+        long fromMain = (firstFrameNanos - LAUNCH_NANOS) / 1000000;
+        long fromJvmStart = ManagementFactory.getRuntimeMXBean().getUptime()
+            - (System.nanoTime() - firstFrameNanos) / 1000000;
+        metrics.firstFrameShown(fromJvmStart, fromMain);
+        if (EXIT_AFTER_FIRST_FRAME) {
+            System.out.println("First frame " + fromJvmStart + " ms after JVM start, "
+                + fromMain + " ms after main");
+            dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING));
+        }
+    }
+    
+    /**
+     * Calculate Action Handler
+     */
+    private class CalculateAction implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            performCalculation();
+        }
+    }
+    
+    /**
+     * Perform NAV calculation with validation and animation
+     */
+    private void performCalculation() {
+        long start = metrics.start();
+        try {
+            // Show progress
+            showCalculationProgress();
+            
+            // Validate inputs
+            String stock = stockField.getText().trim().toUpperCase();
+            if (stock.isEmpty()) {
+                showError("Please enter a stock symbol");
+                hideCalculationProgress();
+                return;
+            }
+            
+            long buying = parsePrice(buyingField.getText());
+            long selling = parsePrice(sellingField.getText());
+            
+            if (buying <= 0 || selling <= 0) {
+                showError("Prices must be greater than zero");
+                hideCalculationProgress();
+                return;
+            }
+            
+            // Calculate in the background; the result comes back through completeCalculation
+            metrics.record(Metrics.Stage.VALIDATION, start);
+            calculationPipeline.submit(stock, buying, selling);
+            
+        } catch (NumberFormatException ex) {
+            showError("Please enter valid numeric values for prices");
+            hideCalculationProgress();
+        }
+    }
+    
+    /**
+     * Complete the calculation process with a result from the pipeline (on the EDT)
+     */
+    private void completeCalculation(String stock, long buying, long selling, long nav,
+                                     long profitLoss, double profitLossPercent, long timestamp) {
+        long start = metrics.start();
+        try {
+            // Create calculation record
+            NavCalculation calculation = new NavCalculation(
+                stock, buying, selling, nav, profitLoss, profitLossPercent, timestamp
+            );
+            
+            // Update history (the ring buffer evicts the oldest record itself)
+            navHistory.append(stock, buying, selling, nav, profitLoss, profitLossPercent,
+                calculation.timestamp);
+            symbolStats.record(stock, buying, selling, nav, profitLoss, profitLossPercent, timestamp);
+            barAggregator.record(stock, buying, selling, nav, profitLoss, profitLossPercent, timestamp);
+            symbolSeries.record(stock, buying, selling, nav, profitLoss, profitLossPercent, timestamp);
+            portfolio.record(stock, buying, selling, nav, profitLoss, profitLossPercent, timestamp);
+            portfolioChanged();
+            chartSymbol = stock;
+            journalCalculation(calculation);
+            if (historyDialog != null) {
+                historyDialog.historyChanged();
+            }
+            
+            // Update displays on the next frame
+            updateResults(calculation);
+            metrics.record(Metrics.Stage.RECORDING, start);
+            metrics.calculationCompleted();
+            updateGraph(nav);
+            displayedNav = nav;
+            postStatus("Calculation completed successfully");
+            uiRefresher.mark(UiRefresher.RESULTS | UiRefresher.NAV | UiRefresher.GRAPH | UiRefresher.CHART_MODE);
+            
+            if (calculationPipeline.inFlight() == 0) {
+                hideCalculationProgress();
+            }
+            
+        } catch (Exception ex) {
+            showError("Calculation failed: " + ex.getMessage());
+            hideCalculationProgress();
+        }
+    }
+    
+    /**
+     * Report a failure from the calculation pipeline (on the EDT)
+     */
+    private void calculationFailed(Exception ex) {
+        showError("Calculation failed: " + ex.getMessage());
+        if (calculationPipeline.inFlight() == 0) {
+            hideCalculationProgress();
+        }
+    }
+    
+    /**
+     * Parse a price into paise with validation
+     */
+    private long parsePrice(String priceText) throws NumberFormatException {
+        if (priceText == null || priceText.trim().isEmpty()) {
+            throw new NumberFormatException("Price cannot be empty");
+        }
+        long paise = Money.parse(priceText);
+        if (paise == Money.INVALID) {
+            throw new NumberFormatException("Not a price: " + priceText);
+        }
+        return paise;
+    }
+    
+    /**
+     * Update results display
+     */
+    private void updateResults(NavCalculation calc) {
+        resultsLog.add(RESULT_LINES, line -> {
+            // Lines are formatted lazily, when the list shows them
+            long start = metrics.start();
+            String text = resultLine(calc, line, dateFormat);
+            metrics.record(Metrics.Stage.FORMATTING, start);
+            return text;
+        });
+    }
+    
+    private void scrollResultsToEnd() {
+        int last = resultsLog.getSize() - 1;
+        if (last >= 0) {
+            resultList.ensureIndexIsVisible(last);
+        }
+    }
+    
+    /**
+     * Format one line of the boxed block shown for a calculation
+     */
+    static String resultLine(NavCalculation calc, int line, SimpleDateFormat dateFormat) {
+        switch (line) {
+            case 0: return BOX_TOP;
+            case 1: return "║           CALCULATION RESULTS        ║";
+            case 2: return BOX_RULE;
+            case 3: return String.format("║ Stock Symbol    : %-18s ║", calc.stock);
+            case 4: return String.format("║ Buying Price    : ₹%-17s ║", Money.format(calc.buying));
+            case 5: return String.format("║ Selling Price   : ₹%-17s ║", Money.format(calc.selling));
+            case 6: return String.format("║ Calculated NAV  : ₹%-17s ║", Money.format(calc.nav));
+            case 7: return String.format("║ Profit/Loss     : ₹%-17s ║", Money.format(calc.profitLoss));
+            case 8: return String.format("║ P/L Percentage  : %-17.2f%% ║", calc.profitLossPercent);
+            case 9: return String.format("║ Status          : %-18s ║",
+                calc.profitLoss >= 0 ? "PROFIT 📈" : "LOSS 📉");
+            case 10: return String.format("║ Timestamp       : %-18s ║",
+                dateFormat.format(new Date(calc.timestamp)));
+            case 11: return BOX_BOTTOM;
+            default: return "";
+        }
+    }
+    
+    /**
+     * Run a Monte Carlo simulation of the NAV model for the entered prices
+     */
+    private void runSimulation() {
+        String stock = stockField.getText().trim().toUpperCase();
+        long buying;
+        long selling;
+        try {
+            buying = parsePrice(buyingField.getText());
+            selling = parsePrice(sellingField.getText());
+        } catch (NumberFormatException ex) {
+            showError("Please enter valid numeric values for prices");
+            return;
+        }
+        if (buying <= 0 || selling <= 0) {
+            showError("Prices must be greater than zero");
+            return;
+        }
+        
+        calculationProgress.setVisible(true);
+        calculationProgress.setIndeterminate(true);
+        calculationProgress.setString("Simulating " + SIMULATION_PATHS + " paths...");
+        updateStatus("Running Monte Carlo simulation...");
+        
+        new SwingWorker<MonteCarloSimulator.Result, Void>() {
+            @Override
+            protected MonteCarloSimulator.Result doInBackground() {
+                return new MonteCarloSimulator(ForkJoinPool.commonPool(), SIMULATION_HORIZON_MILLIS)
+                    .simulate(Money.toRupees(buying), Money.toRupees(selling), SIMULATION_PATHS,
+                        System.nanoTime());
+            }
+            
+            @Override
+            protected void done() {
+                hideCalculationProgress();
+                try {
+                    showSimulationResult(stock.isEmpty() ? "-" : stock, get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    showError("Simulation failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+    
+    /**
+     * Append simulation statistics to the results display
+     */
+    private void showSimulationResult(String stock, MonteCarloSimulator.Result sim) {
+        resultsLog.add(SIMULATION_LINES, line -> simulationLine(stock, sim, line));
+        uiRefresher.mark(UiRefresher.RESULTS);
+        updateStatus("Simulation of " + sim.paths + " paths completed");
+    }
+    
+    private static String simulationLine(String stock, MonteCarloSimulator.Result sim, int line) {
+        switch (line) {
+            case 0: return BOX_TOP;
+            case 1: return "║          MONTE CARLO SIMULATION      ║";
+            case 2: return BOX_RULE;
+            case 3: return String.format("║ Stock Symbol    : %-18s ║", stock);
+            case 4: return String.format("║ Paths           : %-18d ║", sim.paths);
+            case 5: return String.format("║ Mean NAV        : ₹%-17.2f ║", sim.mean);
+            case 6: return String.format("║ Std Deviation   : ₹%-17.2f ║", sim.standardDeviation);
+            case 7: return String.format("║ 1st Percentile  : ₹%-17.2f ║", sim.p1);
+            case 8: return String.format("║ 5th Percentile  : ₹%-17.2f ║", sim.p5);
+            case 9: return String.format("║ 95th Percentile : ₹%-17.2f ║", sim.p95);
+            case 10: return String.format("║ 99th Percentile : ₹%-17.2f ║", sim.p99);
+            case 11: return String.format("║ Elapsed         : %-15d ms ║", sim.elapsedNanos / 1000000);
+            case 12: return BOX_BOTTOM;
+            default: return "";
+        }
+    }
+    
+    /**
+     * Update NAV display
+     */
+    private void updateNavDisplay(long navPaise) {
+        if (!portfolio.isEmpty()) {
+            long profitLoss = portfolio.profitLoss();
+            StringBuilder text = new StringBuilder(64).append("Portfolio NAV: ₹");
+            Money.appendTo(text, portfolio.value()).append("   P&L: ₹");
+            Money.appendTo(text, profitLoss).append(" (");
+            DecimalText.appendFixed(text, portfolio.profitLossPercent(), 2).append("%)");
+            navLabel.setText(text.toString());
+            navLabel.setForeground(profitLoss >= 0 ? SUCCESS_COLOR : ERROR_COLOR);
+            return;
+        }
+        navLabel.setText("Current NAV: ₹" + Money.format(navPaise));
+        navLabel.setForeground(navPaise > 100 * Money.SCALE ? SUCCESS_COLOR : 
+                              navPaise < 90 * Money.SCALE ? ERROR_COLOR : Color.ORANGE);
+    }
+    
+    /**
+     * Chart the portfolio value once per batch of marks, and refresh the
+     * totals on the next frame
+     */
+    private void portfolioChanged() {
+        long version = portfolio.version();
+        if (version == portfolioVersion) {
+            return;
+        }
+        portfolioVersion = version;
+        if (!portfolio.isEmpty()) {
+            portfolioSeries.append(Money.toRupees(portfolio.value()));
+        }
+        uiRefresher.mark(portfolioChart ? UiRefresher.NAV | UiRefresher.GRAPH : UiRefresher.NAV);
+    }
+    
+    /**
+     * Add the latest NAV, in paise, to the graph; it is repainted on the next frame
+     */
+    private void updateGraph(long navPaise) {
+        if (graphPanel == null) {
+            return;
+        }
+        if (sampleDataShown) {
+            updateGraph();
+        } else {
+            graphPanel.append(Money.toRupees(navPaise));
+        }
+    }
+    
+    /**
+     * Rebuild the graph from the whole history
+     */
+    private void updateGraph() {
+        if (graphPanel == null) {
+            return;
+        }
+        graphPanel.clear();
+        for (int i = 0; i < navHistory.size(); i++) {
+            graphPanel.append(navHistory.nav(i));
+        }
+        graphPanel.repaint();
+        sampleDataShown = false;
+    }
+    
+    /**
+     * Publish the displays marked dirty since the last frame (on the EDT)
+     */
+    private void refreshDisplays(int flags) {
+        long start = metrics.start();
+        if ((flags & UiRefresher.RESULTS) != 0) {
+            resultsLog.publish();
+            scrollResultsToEnd();
+        }
+        if ((flags & UiRefresher.NAV) != 0) {
+            updateNavDisplay(displayedNav);
+        }
+        if ((flags & UiRefresher.CHART_MODE) != 0) {
+            updateChartMode();
+        }
+        if ((flags & UiRefresher.GRAPH) != 0 && graphPanel != null) {
+            graphPanel.repaint();
+        }
+        if ((flags & UiRefresher.STATUS) != 0 && pendingStatus != null) {
+            updateStatus(pendingStatus);
+        }
+        metrics.record(Metrics.Stage.UI_REFRESH, start);
+    }
+    
+    /**
+     * Show calculation progress
+     */
+    private void showCalculationProgress() {
+        if (revaluation != null) {
+            updateStatus("Processing calculation...");
+            return;
+        }
+        calculationProgress.setVisible(true);
+        calculationProgress.setIndeterminate(true);
+        calculationProgress.setString("Calculating NAV...");
+        updateStatus("Processing calculation...");
+    }
+    
+    /**
+     * Hide calculation progress
+     */
+    private void hideCalculationProgress() {
+        if (revaluation != null) {
+            return;
+        }
+        calculationProgress.setVisible(false);
+        calculationProgress.setIndeterminate(false);
+    }
+    
+    /**
+     * Show error message
+     */
+    private void showError(String message) {
+        metrics.errorReported();
+        JOptionPane.showMessageDialog(this, message, "Input Error", JOptionPane.ERROR_MESSAGE);
+        updateStatus("Error: " + message);
+    }
+    
+    /**
+     * Update status message
+     */
+    private void updateStatus(String message) {
+        pendingStatus = null;
+        statusLabel.setText(message);
+        statusLabel.setForeground(Color.GRAY);
+    }
+    
+    /**
+     * Set the status message on the next frame; a later updateStatus wins
+     */
+    private void postStatus(String message) {
+        pendingStatus = message;
+        uiRefresher.mark(UiRefresher.STATUS);
+    }
+    
+    // Navigation Methods
+    
+    /**
+     * Reset to home state
+     */
+    private void resetToHome() {
+        uiRefresher.flush();
+        stockField.setText("");
+        buyingField.setText("100.00");
+        sellingField.setText("120.00");
+        displayedNav = 0;
+        if (portfolio.isEmpty()) {
+            navLabel.setText("Current NAV: ₹0.00");
+            navLabel.setForeground(SUCCESS_COLOR);
+        } else {
+            updateNavDisplay(displayedNav);
+        }
+        updateStatus("Reset to home. Ready for new calculation.");
+        stockField.requestFocus();
+    }
+    
+    /**
+     * Show calculation history
+     */
+    private void showHistory() {
+        if (navHistory.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No calculation history available.", 
+                "History", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        if (historyDialog == null) {
+            historyDialog = new HistoryDialog(this, navHistory, symbolStats);
+        }
+        historyDialog.open();
+    }
+    
+    /**
+     * Show settings dialog
+     */
+    private void showSettings() {
+        String[] options = {"Light Theme", "Dark Theme", "Auto-save Results", "Tick Feed", "Portfolio",
+            "NAV Model", "Export Format"};
+        String selected = (String) JOptionPane.showInputDialog(this, 
+            "Select a setting to configure:", "Settings", 
+            JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        
+        if (selected == null) {
+            return;
+        }
+        
+        if (selected.equals("Auto-save Results")) {
+            configureAutoSave();
+            return;
+        }
+        if (selected.equals("Tick Feed")) {
+            configureTickFeed();
+            return;
+        }
+        if (selected.equals("Portfolio")) {
+            configurePortfolio();
+            return;
+        }
+        if (selected.equals("NAV Model")) {
+            configureNavModel();
+            return;
+        }
+        
+        JOptionPane.showMessageDialog(this, 
+            "Settings for '" + selected + "' - Coming soon in next version!", 
+            "Settings", JOptionPane.INFORMATION_MESSAGE);
+    }
+    
+    /**
+     * Toggle the calculation journal
+     */
+    private void configureAutoSave() {
+        boolean enabled = journal != null || (journalRewrite != null && !closeAfterJournalRewrite);
+        String message = enabled
+            ? "Auto-save is ON.\nCalculations are journaled to " + JOURNAL_PATH + "\n\nTurn auto-save off?"
+            : "Auto-save is OFF.\nCalculations are lost when the window closes.\n\nTurn auto-save on?";
+        int result = JOptionPane.showConfirmDialog(this, message, "Auto-save Results",
+            JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+        if (result != JOptionPane.YES_OPTION) {
+            return;
+        }
+        
+        preferences.putBoolean(PREF_AUTO_SAVE, !enabled);
+        if (enabled) {
+            if (journalRewrite != null) {
+                closeJournalAfterRewrite();
+            } else {
+                closeJournal();
+            }
+            updateStatus("Auto-save turned off.");
+        } else if (journalRewrite != null) {
+            // Still closing after a rewrite; keep it and rewrite it again instead
+            closeAfterJournalRewrite = false;
+            rewriteJournal();
+            updateStatus("Auto-save turned on.");
+        } else {
+            openJournal(false);
+            if (journalRewrite != null) {
+                updateStatus("Auto-save turned on.");
+            }
+        }
+    }
+    
+    /**
+     * Load holdings from a CSV, or clear them
+     */
+    private void configurePortfolio() {
+        String message = portfolio.isEmpty()
+            ? "No portfolio loaded.\nLoad holdings from a CSV of symbol,quantity,unitCost rows."
+            : "Portfolio of " + portfolio.holdings() + " holdings, cost ₹" + Money.format(portfolio.cost())
+                + ", value ₹" + Money.format(portfolio.value()) + ".";
+        String[] choices = portfolio.isEmpty()
+            ? new String[] {"Load...", "Cancel"}
+            : new String[] {"Load...", "Clear", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(this, message, "Portfolio", JOptionPane.DEFAULT_OPTION,
+            JOptionPane.QUESTION_MESSAGE, null, choices, choices[0]);
+        if (choice == 0) {
+            JFileChooser chooser = new JFileChooser(preferences.get(PREF_PORTFOLIO_PATH, null));
+            if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                Path path = chooser.getSelectedFile().toPath();
+                preferences.put(PREF_PORTFOLIO_PATH, path.toString());
+                loadPortfolio(path);
+            }
+        } else if (choice == 1 && choices.length == 3) {
+            preferences.remove(PREF_PORTFOLIO_PATH);
+            portfolio.clear();
+            portfolioSeries.clear();
+            portfolioChanged();
+            updateStatus("Portfolio cleared.");
+        }
+    }
+    
+    /**
+     * Read holdings in the background, then mark each at the latest NAV
+     * calculated for its symbol
+     */
+    private void loadPortfolio(Path path) {
+        updateStatus("Loading portfolio from " + path.getFileName() + "...");
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws IOException {
+                return portfolio.load(path);
+            }
+            
+            @Override
+            protected void done() {
+                int skipped;
+                try {
+                    skipped = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    showError("Could not load portfolio: " + cause.getMessage());
+                    return;
+                }
+                markPortfolio();
+                updateStatus("Loaded " + portfolio.holdings() + " holdings from " + path.getFileName()
+                    + (skipped > 0 ? " (" + skipped + " rows skipped)" : ""));
+            }
+        }.execute();
+    }
+    
+    /**
+     * Mark each holding at the latest NAV calculated for its symbol and
+     * restart the portfolio chart
+     */
+    private void markPortfolio() {
+        SymbolTable symbols = navHistory.symbols();
+        for (int id : portfolio.symbolIds()) {
+            NavSeries series = symbolSeries.series(symbols.name(id));
+            if (series != null && !series.isEmpty()) {
+                portfolio.mark(id, Money.ofRupees(series.get(series.size() - 1)));
+            }
+        }
+        portfolioSeries.clear();
+        portfolioChanged();
+    }
+    
+    /**
+     * Change the NAV model parameters and revalue the stored history under
+     * them, or cancel a revaluation in progress
+     */
+    private void configureNavModel() {
+        if (revaluation != null) {
+            int result = JOptionPane.showConfirmDialog(this,
+                "The history is being revalued under a new NAV model.\n\nCancel it?", "NAV Model",
+                JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+            if (result == JOptionPane.YES_OPTION) {
+                cancelRevaluation();
+            }
+            return;
+        }
+        if (journalRewrite != null) {
+            // Its NAVs must all come from the model saved in preferences
+            JOptionPane.showMessageDialog(this,
+                "The journal is still being rewritten after the last model change.\nTry again shortly.",
+                "NAV Model", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        NavModel current = NavEngine.model();
+        JSpinner volatility = new JSpinner(new SpinnerNumberModel(current.volatility, 0.0, 1000000.0, 0.5));
+        JSpinner amplitude = new JSpinner(new SpinnerNumberModel(current.trendAmplitude, -1000000.0, 1000000.0, 0.5));
+        JSpinner period = new JSpinner(new SpinnerNumberModel(
+            current.trendScaleMillis * 2 * Math.PI / 60000, 0.01, 1000000.0, 1.0));
+        
+        JPanel panel = new JPanel(new GridLayout(0, 2, 8, 8));
+        panel.add(new JLabel("Market volatility (±₹):"));
+        panel.add(volatility);
+        panel.add(new JLabel("Trend amplitude (₹):"));
+        panel.add(amplitude);
+        panel.add(new JLabel("Trend period (minutes):"));
+        panel.add(period);
+        JPanel message = new JPanel(new BorderLayout(0, 8));
+        message.add(new JLabel("NAV = mid price + market noise + trend. Changing the model revalues "
+            + navHistory.size() + " stored calculations."), BorderLayout.NORTH);
+        message.add(panel, BorderLayout.CENTER);
+        int result = JOptionPane.showConfirmDialog(this, message, "NAV Model",
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+        
+        NavModel model = new NavModel(((Number) volatility.getValue()).doubleValue(),
+            ((Number) amplitude.getValue()).doubleValue(),
+            ((Number) period.getValue()).doubleValue() * 60000 / (2 * Math.PI));
+        if (model.sameAs(current)) {
+            return;
+        }
+        revalueHistory(model);
+    }
+    
+    /**
+     * Revalue the stored history under a new model in the background. The
+     * NAVs are calculated in parallel, then the statistics, bars and series
+     * are rebuilt from them; all of it replaces what is shown in one step
+     * on the EDT, when the new model also takes effect.
+     */
+    private void revalueHistory(NavModel model) {
+        Revaluation job = new Revaluation(ForkJoinPool.commonPool(), navHistory, NavEngine.model(), model);
+        long from = navHistory.firstSequence();
+        long to = navHistory.endSequence();
+        HistoryStore history = navHistory;
+        SymbolTable symbols = navHistory.symbols();
+        revaluation = job;
+        
+        calculationProgress.setVisible(true);
+        calculationProgress.setIndeterminate(false);
+        calculationProgress.setValue(0);
+        calculationProgress.setString("Revaluing history... 0%");
+        cancelRevaluationButton.setVisible(true);
+        updateStatus("Revaluing " + (to - from) + " calculations under the new NAV model...");
+        
+        SwingWorker<RevaluedHistory, Void> worker = new SwingWorker<RevaluedHistory, Void>() {
+            @Override
+            protected RevaluedHistory doInBackground() {
+                // The NAVs are most of the work; the rebuild is the last fifth
+                Revaluation.Result result = job.run(from, to, percent -> setProgress(percent * 4 / 5));
+                if (result == null) {
+                    return null;
+                }
+                RevaluedHistory revalued = new RevaluedHistory(result, symbols);
+                job.replay(result, revalued::revalued, percent -> setProgress(80 + percent / 5));
+                
+                // Catch up with calculations recorded meanwhile, leaving the EDT a short tail
+                while (!job.isCancelled() && history.endSequence() - revalued.result.endSequence()
+                    > REVALUATION_TAIL_LIMIT) {
+                    Revaluation.Result tail = job.run(revalued.result.endSequence(), history.endSequence(),
+                        percent -> { });
+                    if (tail == null) {
+                        return null;
+                    }
+                    job.replay(tail, revalued::revalued, percent -> { });
+                    revalued.result = revalued.result.append(tail);
+                }
+                return job.isCancelled() ? null : revalued;
+            }
+            
+            @Override
+            protected void done() {
+                if (revaluation == job) {
+                    revaluation = null;
+                    cancelRevaluationButton.setVisible(false);
+                    hideCalculationProgress();
+                }
+                RevaluedHistory revalued;
+                try {
+                    revalued = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    showError("Revaluation failed: " + cause.getMessage());
+                    return;
+                }
+                if (revalued == null || job.isCancelled()) {
+                    updateStatus("Revaluation cancelled; the NAV model is unchanged.");
+                    return;
+                }
+                swapRevaluedHistory(job, revalued);
+            }
+        };
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName()) && revaluation == job) {
+                int percent = (Integer) e.getNewValue();
+                calculationProgress.setValue(percent);
+                calculationProgress.setString("Revaluing history... " + percent + "%");
+            }
+        });
+        worker.execute();
+    }
+    
+    /**
+     * Put a revalued history in place (on the EDT). The few calculations
+     * recorded since the job caught up are revalued here, and both sets of
+     * NAVs go into the store under one lock, so everything shown moves to
+     * the new model together.
+     */
+    private void swapRevaluedHistory(Revaluation job, RevaluedHistory revalued) {
+        NavEngine.setModel(job.newModel());
+        preferences.put(PREF_NAV_MODEL, job.newModel().encode());
+        
+        Revaluation.Result result = revalued.result;
+        Revaluation.Result tail = job.run(result.endSequence(), navHistory.endSequence(), percent -> { });
+        job.replay(tail, revalued::revalued, percent -> { });
+        navHistory.replaceNav(result.firstSequence, result.navPaise, result.count,
+            tail.firstSequence, tail.navPaise, tail.count);
+        
+        symbolStats.replaceWith(revalued.stats);
+        barAggregator = revalued.bars;
+        symbolSeries = revalued.series;
+        if (comparedSymbols != null) {
+            for (int i = 0; i < comparedSymbols.length; i++) {
+                comparedSeries[i] = symbolSeries.series(comparedSymbols[i]);
+            }
+        }
+        markPortfolio();
+        if (!navHistory.isEmpty()) {
+            displayedNav = navHistory.navPaise(navHistory.size() - 1);
+        }
+        updateGraph();
+        uiRefresher.mark(UiRefresher.NAV | UiRefresher.GRAPH | UiRefresher.CHART_MODE);
+        if (historyDialog != null) {
+            historyDialog.historyChanged();
+        }
+        rewriteJournal();
+        
+        long elapsed = (result.elapsedNanos + tail.elapsedNanos) / 1000000;
+        updateStatus("Revalued " + (result.count + tail.count) + " calculations under the new NAV model in "
+            + elapsed + " ms");
+    }
+    
+    private void cancelRevaluation() {
+        if (revaluation == null) {
+            return;
+        }
+        revaluation.cancel();
+        revaluation = null;
+        cancelRevaluationButton.setVisible(false);
+        hideCalculationProgress();
+        updateStatus("Cancelling revaluation...");
+    }
+    
+    /**
+     * Rewrite the journal from the history in the background. It is
+     * detached meanwhile, and calculations made in the meantime are
+     * appended when it is reattached. A rewrite already running is
+     * stopped and started again from the history as it is by then, unless
+     * the journal is to be closed.
+     */
+    private void rewriteJournal() {
+        if (journalRewrite != null) {
+            if (!closeAfterJournalRewrite) {
+                journalRewriteAgain = true;
+                journalRewriteStop.set(true);
+            }
+            return;
+        }
+        if (journal == null) {
+            return;
+        }
+        CalculationJournal target = journal;
+        long from = navHistory.firstSequence();
+        long to = navHistory.endSequence();
+        AtomicBoolean stop = new AtomicBoolean();
+        journal = null;
+        rewritingJournal = target;
+        rewrittenEnd = to;
+        journalRewriteStop = stop;
+        journalRewrite = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                target.reset();
+                journalHistory(target, from, to, stop);
+                target.sync();
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                if (journalRewrite == this) {
+                    journalRewriteDone(this);
+                }
+            }
+        };
+        journalRewrite.execute();
+    }
+    
+    /**
+     * Stop a running journal rewrite and close the journal when it has
+     * stopped, as turning auto-save off does
+     */
+    private void closeJournalAfterRewrite() {
+        journalRewriteAgain = false;
+        closeAfterJournalRewrite = true;
+        journalRewriteStop.set(true);
+    }
+    
+    /**
+     * Wait for a running journal rewrite; only for the window closing,
+     * everywhere else the rewrite finishes on its own
+     */
+    private void joinJournalRewrite() {
+        SwingWorker<Void, Void> rewrite = journalRewrite;
+        if (rewrite == null) {
+            return;
+        }
+        try {
+            rewrite.get();
+        } catch (InterruptedException | ExecutionException ex) {
+            // Reported by journalRewriteDone
+        }
+        journalRewriteDone(rewrite);
+    }
+    
+    /**
+     * A journal rewrite has ended (on the EDT): reattach the journal with
+     * the calculations made meanwhile, or start over or close it as asked
+     * while it ran
+     */
+    private void journalRewriteDone(SwingWorker<Void, Void> rewrite) {
+        CalculationJournal target = rewritingJournal;
+        journalRewrite = null;
+        rewritingJournal = null;
+        journalRewriteStop = null;
+        boolean again = journalRewriteAgain;
+        boolean close = closeAfterJournalRewrite;
+        journalRewriteAgain = false;
+        closeAfterJournalRewrite = false;
+        try {
+            rewrite.get();
+            if (close) {
+                target.close();
+                return;
+            }
+            if (again) {
+                journal = target;
+                rewriteJournal();
+                return;
+            }
+            journalHistory(target, rewrittenEnd, navHistory.endSequence(), new AtomicBoolean());
+            journal = target;
+        } catch (InterruptedException | ExecutionException | IOException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            try {
+                target.close();
+            } catch (IOException e) {
+                System.err.println("Could not close journal: " + e.getMessage());
+            }
+            if (!close) {
+                showError("Auto-save disabled, journal rewrite failed: " + cause.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Append the retained history records [from, to) to a journal, until
+     * stop is set
+     */
+    private void journalHistory(CalculationJournal target, long from, long to, AtomicBoolean stop)
+            throws IOException {
+        HistoryStore.Batch batch = new HistoryStore.Batch(FEED_BATCH_SIZE);
+        SymbolTable symbols = navHistory.symbols();
+        long sequence = from;
+        int n;
+        while (sequence < to && !stop.get() && (n = navHistory.copy(sequence, to, batch)) > 0) {
+            for (int i = 0; i < n; i++) {
+                target.append(symbols.name(batch.symbolIds[i]), batch.buyingPaise[i], batch.sellingPaise[i],
+                    batch.navPaise[i], batch.profitLossPaise[i], batch.profitLossPercent[i], batch.timestamps[i]);
+            }
+            sequence = batch.firstSequence + n;
+        }
+    }
+    
+    /**
+     * Start or stop the live tick feed
+     */
+    private void configureTickFeed() {
+        if (tickFeed != null) {
+            int result = JOptionPane.showConfirmDialog(this,
+                "Tick feed is connected to " + tickFeed.source() + "\n\nStop it?", "Tick Feed",
+                JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+            if (result == JOptionPane.YES_OPTION) {
+                stopTickFeed();
+                updateStatus("Tick feed stopped.");
+            }
+            return;
+        }
+        
+        String source = (String) JOptionPane.showInputDialog(this,
+            "Feed source (tcp://host:port or a file of symbol,buying,selling lines):", "Tick Feed",
+            JOptionPane.QUESTION_MESSAGE, null, null,
+            preferences.get(PREF_FEED_SOURCE, "tcp://127.0.0.1:9099"));
+        if (source == null || source.trim().isEmpty()) {
+            return;
+        }
+        preferences.put(PREF_FEED_SOURCE, source.trim());
+        startTickFeed(source.trim());
+    }
+    
+    private void startTickFeed(String source) {
+        TickQueue.Policy policy;
+        try {
+            policy = TickQueue.Policy.valueOf(FEED_POLICY.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            policy = TickQueue.Policy.COALESCE;
+        }
+        tickFeed = new TickFeed(source, navHistory.symbols(), new TickQueue(FEED_QUEUE_CAPACITY, policy),
+            FEED_BATCH_SIZE, this::completeTickBatch, this::tickFeedFailed);
+        tickFeed.start();
+        feedStatusMillis = System.currentTimeMillis();
+        feedStatusTicks = feedTicks;
+        updateStatus("Tick feed connecting to " + source + " (" + policy + ")...");
+    }
+    
+    private void stopTickFeed() {
+        if (tickFeed != null) {
+            tickFeed.stop();
+            tickFeed = null;
+        }
+    }
+    
+    /**
+     * Record a batch of calculated ticks from the feed (on the EDT). The
+     * displays are refreshed on the next frame rather than once per tick.
+     */
+    private void completeTickBatch(TickBatch batch) {
+        if (batch.count == 0) {
+            return;
+        }
+        long start = metrics.start();
+        if (sampleDataShown) {
+            updateGraph();
+        }
+        
+        for (int i = 0; i < batch.count; i++) {
+            int id = batch.symbolIds[i];
+            navHistory.append(id, batch.buying[i], batch.selling[i], batch.nav[i],
+                batch.profitLoss[i], batch.profitLossPercent[i], batch.timestamps[i]);
+            symbolStats.add(id, batch.nav[i], batch.profitLoss[i], batch.profitLossPercent[i]);
+            barAggregator.add(id, batch.nav[i], batch.timestamps[i]);
+            double nav = Money.toRupees(batch.nav[i]);
+            symbolSeries.add(id, nav);
+            portfolio.mark(id, batch.nav[i]);
+            if (graphPanel != null) {
+                graphPanel.append(nav);
+            }
+        }
+        if (journal != null) {
+            // One sync for the whole batch rather than every few records
+            try {
+                journal.append(batch, navHistory.symbols());
+            } catch (IOException e) {
+                closeJournal();
+                showError("Auto-save disabled, journal write failed: " + e.getMessage());
+            }
+        }
+        
+        int last = batch.count - 1;
+        feedTicks += batch.count;
+        metrics.ticksReceived(batch.count);
+        chartSymbol = navHistory.symbols().name(batch.symbolIds[last]);
+        displayedNav = batch.nav[last];
+        portfolioChanged();
+        uiRefresher.mark(UiRefresher.NAV | UiRefresher.GRAPH | UiRefresher.CHART_MODE);
+        if (historyDialog != null) {
+            historyDialog.historyChanged();
+        }
+        
+        long now = System.currentTimeMillis();
+        if (now - feedStatusMillis >= 1000 && tickFeed != null) {
+            long rate = (feedTicks - feedStatusTicks) * 1000 / (now - feedStatusMillis);
+            TickQueue queue = tickFeed.queue();
+            postStatus("Feed: " + rate + " ticks/s, " + feedTicks + " recorded, "
+                + queue.coalesced() + " coalesced, " + queue.dropped() + " dropped, "
+                + tickFeed.malformed() + " malformed");
+            feedStatusMillis = now;
+            feedStatusTicks = feedTicks;
+        }
+        metrics.record(Metrics.Stage.FEED_BATCH, start);
+    }
+    
+    /**
+     * Report a feed read error (on the EDT); sockets keep retrying
+     */
+    private void tickFeedFailed(Exception ex) {
+        if (tickFeed != null) {
+            updateStatus("Tick feed " + tickFeed.source() + ": " + ex.getMessage());
+        }
+    }
+    
+    /**
+     * Clear all data
+     */
+    private void clearAll() {
+        int result = JOptionPane.showConfirmDialog(this, 
+            "Are you sure you want to clear all data?\nThis action cannot be undone.", 
+            "Confirm Clear", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        
+        if (result == JOptionPane.YES_OPTION) {
+            cancelRevaluation();
+            uiRefresher.flush();
+            resultsLog.clear();
+            navHistory.clear();
+            symbolStats.clear();
+            barAggregator.clear();
+            symbolSeries.clear();
+            portfolioSeries.clear();
+            if (historyDialog != null) {
+                historyDialog.historyChanged();
+            }
+            if (journalRewrite != null) {
+                rewriteJournal();
+            } else if (journal != null) {
+                try {
+                    journal.reset();
+                } catch (IOException e) {
+                    showError("Could not clear journal: " + e.getMessage());
+                }
+            }
+            if (graphPanel != null) {
+                graphPanel.clear();
+            }
+            sampleDataShown = false;
+            resetToHome();
+            updateStatus("All data cleared successfully.");
+        }
+    }
+    
+    /**
+     * Export data functionality
+     */
+    private void exportData() {
+        if (navHistory.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No data to export.", 
+                "Export", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        String[] formats = {"CSV", "JSON", "XML", "NAV Archive", "PDF Report"};
+        String format = (String) JOptionPane.showInputDialog(this, 
+            "Select export format:", "Export Data", 
+            JOptionPane.QUESTION_MESSAGE, null, formats, formats[0]);
+        
+        if (format == null) {
+            return;
+        }
+        
+        if (format.equals("PDF Report")) {
+            JOptionPane.showMessageDialog(this, 
+                "Export to " + format + " format - Feature coming soon!\n" +
+                "Current data: " + navHistory.size() + " calculations", 
+                "Export", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        boolean archive = format.equals("NAV Archive");
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("nav-history." + (archive ? "nava" 
+            : HistoryExporter.Format.valueOf(format).extension)));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        
+        // Statistics go to a companion file; the archive gets them as CSV
+        Path path = chooser.getSelectedFile().toPath();
+        List<SymbolStatsIndex.Stats> stats = symbolStats.snapshot();
+        HistoryExporter.Format statsFormat = archive ? HistoryExporter.Format.CSV
+            : HistoryExporter.Format.valueOf(format);
+        HistoryExporter statsExporter = new HistoryExporter(navHistory, statsFormat);
+        Path statsPath = HistoryExporter.statsPath(path, statsFormat.extension);
+        if (archive) {
+            startExport(format, path, progress -> {
+                long written = NavArchive.write(navHistory, path);
+                statsExporter.exportStats(statsPath, stats);
+                return written;
+            });
+        } else {
+            HistoryExporter exporter = new HistoryExporter(navHistory, statsFormat);
+            startExport(format, path, progress -> {
+                long written = exporter.export(path, progress);
+                statsExporter.exportStats(statsPath, stats);
+                return written;
+            });
+        }
+    }
+    
+    /**
+     * Export job run off the EDT; returns the number of records written
+     */
+    private interface ExportTask {
+        long run(IntConsumer progress) throws IOException;
+    }
+    
+    /**
+     * Write the history to a file off the EDT, reporting progress in the progress bar
+     */
+    private void startExport(String format, Path path, ExportTask task) {
+        calculationProgress.setVisible(true);
+        calculationProgress.setIndeterminate(false);
+        calculationProgress.setValue(0);
+        calculationProgress.setString("Exporting " + format + "...");
+        updateStatus("Exporting history to " + path.getFileName() + "...");
+        
+        SwingWorker<Long, Void> worker = new SwingWorker<Long, Void>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return task.run(this::setProgress);
+            }
+            
+            @Override
+            protected void done() {
+                hideCalculationProgress();
+                try {
+                    updateStatus("Exported " + get() + " calculations to " + path.getFileName());
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    showError("Export failed: " + cause.getMessage());
+                }
+            }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                calculationProgress.setValue((Integer) evt.getNewValue());
+            }
+        });
+        worker.execute();
+    }
+    
+    /**
+     * Main method - Application entry point
+     */
+    public static void main(String[] args) {
+        // Headless batch mode never touches Swing
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(BatchCalculator.run(args));
+        }
+        if (args.length > 0 && args[0].equals("--generate-ticks")) {
+            System.exit(TickGenerator.run(args));
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            System.exit(NavApiServer.run(args));
+        }
+        // A startup measurement or archive training run needs the real window
+        if (EXIT_AFTER_FIRST_FRAME && GraphicsEnvironment.isHeadless()) {
+            System.err.println("No display: nav.startup.exitAfterFirstFrame needs one (try xvfb-run)");
+            System.exit(1);
+        }
+        
+        // Set system look and feel
+        try {
+            UIManager.setLookAndFeel(UIManager.getLookAndFeel());
+        } catch (UnsupportedLookAndFeelException e) {
+            System.err.println("Could not set system look and feel: " + e.getMessage());
+        }
+        
+        // Enable anti-aliasing for better text rendering
+        System.setProperty("awt.useSystemAAFontSettings", "on");
+        System.setProperty("swing.aatext", "true");
+        
+        // Create and show application
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    new TataNavCalculator().setVisible(true);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(null, 
+                        "Failed to start application: " + e.getMessage(), 
+                        "Startup Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+    }
+}
\ No newline at end of file
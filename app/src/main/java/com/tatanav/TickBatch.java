@@ -0,0 +1,51 @@
+package com.tatanav;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tick Batch - Reusable columns of ticks and their calculated results
+ * Prices, NAV and profit/loss are in paise. Filled from a TickQueue and
+ * calculated by the feed's drain thread, then handed to the EDT in one
+ * piece.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class TickBatch {
+    
+    final int[] symbolIds;
+    final long[] buying;
+    final long[] selling;
+    final long[] timestamps;
+    final long[] nav;
+    final long[] profitLoss;
+    final double[] profitLossPercent;
+    int count;
+    
+    TickBatch(int capacity) {
+        symbolIds = new int[capacity];
+        buying = new long[capacity];
+        selling = new long[capacity];
+        timestamps = new long[capacity];
+        nav = new long[capacity];
+        profitLoss = new long[capacity];
+        profitLossPercent = new double[capacity];
+    }
+    
+    int capacity() {
+        return symbolIds.length;
+    }
+    
+    /**
+     * Run the NAV model over every tick in the batch, with the trend term
+     * taken at each tick's arrival time
+     */
+    void calculate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            nav[i] = NavEngine.calculateNavPaise(buying[i], selling[i], random.nextDouble(), timestamps[i]);
+            profitLoss[i] = NavEngine.profitLossPaise(buying[i], selling[i]);
+            profitLossPercent[i] = NavEngine.profitLossPercentPaise(buying[i], selling[i]);
+        }
+    }
+}
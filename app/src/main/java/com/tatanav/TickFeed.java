@@ -0,0 +1,333 @@
+package com.tatanav;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Tick Feed - Ingests symbol,buying,selling lines from a socket or file
+ * A reader thread pulls bytes over NIO, parses each line in place without
+ * allocating and offers the tick to a TickQueue, whose policy decides
+ * between coalescing, dropping and blocking. A drain thread takes ticks
+ * from the queue in batches, runs the NAV model over the whole batch and
+ * hands it to the EDT. Only one batch is on the EDT at a time; while it
+ * is busy the next batch waits and ticks back up into the queue, so a
+ * slow EDT slows the feed down instead of flooding the event queue.
+ *
+ * Sources are "tcp://host:port" or a file path (optionally "file:path");
+ * files are tailed like tail -f and re-read from the start if truncated.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class TickFeed {
+    
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int SYMBOL_CACHE_SIZE = 1024;
+    private static final long TAIL_POLL_MILLIS = 20;
+    private static final long RECONNECT_MILLIS = 1000;
+    private static final long DRAIN_WAIT_MILLIS = 100;
+    
+    private final String source;
+    private final SymbolTable symbols;
+    private final TickQueue queue;
+    private final int batchSize;
+    private final Consumer<TickBatch> onBatch;
+    private final Consumer<Exception> onError;
+    private final Semaphore batchOnEdt = new Semaphore(1);
+    
+    private volatile boolean running;
+    private volatile ReadableByteChannel channel;
+    private volatile long linesRead;
+    private volatile long malformed;
+    private Thread reader;
+    private Thread drainer;
+    
+    // Symbol strings and ids by hash of their bytes; reader thread only
+    private final byte[][] cachedSymbolBytes = new byte[SYMBOL_CACHE_SIZE][];
+    private final int[] cachedSymbolIds = new int[SYMBOL_CACHE_SIZE];
+    
+    /**
+     * onBatch and onError are invoked on the EDT. The batch passed to
+     * onBatch is reused once the callback returns.
+     */
+    TickFeed(String source, SymbolTable symbols, TickQueue queue, int batchSize,
+             Consumer<TickBatch> onBatch, Consumer<Exception> onError) {
+        this.source = source;
+        this.symbols = symbols;
+        this.queue = queue;
+        this.batchSize = batchSize;
+        this.onBatch = onBatch;
+        this.onError = onError;
+    }
+    
+    void start() {
+        running = true;
+        reader = new Thread(this::readLoop, "nav-feed-reader");
+        reader.setDaemon(true);
+        drainer = new Thread(this::drainLoop, "nav-feed-drain");
+        drainer.setDaemon(true);
+        reader.start();
+        drainer.start();
+    }
+    
+    void stop() {
+        running = false;
+        queue.close();
+        closeChannel();
+        if (reader != null) {
+            reader.interrupt();
+        }
+        if (drainer != null) {
+            drainer.interrupt();
+        }
+    }
+    
+    String source() {
+        return source;
+    }
+    
+    TickQueue queue() {
+        return queue;
+    }
+    
+    long linesRead() {
+        return linesRead;
+    }
+    
+    long malformed() {
+        return malformed;
+    }
+    
+    private void readLoop() {
+        boolean tcp = source.startsWith("tcp://");
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        while (running) {
+            try {
+                buffer.clear();
+                if (tcp) {
+                    readSocket(buffer);
+                } else {
+                    tailFile(buffer);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException | RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                SwingUtilities.invokeLater(() -> onError.accept(e));
+            } finally {
+                closeChannel();
+            }
+            // Sockets reconnect after a pause; a file that cannot be read stays stopped
+            if (!tcp || !running || !sleep(RECONNECT_MILLIS)) {
+                break;
+            }
+        }
+    }
+    
+    private void readSocket(ByteBuffer buffer) throws IOException, InterruptedException {
+        String address = source.substring("tcp://".length());
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IOException("Feed address must be tcp://host:port: " + source);
+        }
+        SocketChannel socket = SocketChannel.open(new InetSocketAddress(
+            address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+        channel = socket;
+        while (running && socket.read(buffer) >= 0) {
+            parseLines(buffer);
+        }
+    }
+    
+    private void tailFile(ByteBuffer buffer) throws IOException, InterruptedException {
+        String path = source.startsWith("file:") ? source.substring("file:".length()) : source;
+        FileChannel file = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        channel = file;
+        while (running) {
+            if (file.size() < file.position()) {
+                // Truncated or rotated in place; start over
+                file.position(0);
+                buffer.clear();
+            }
+            if (file.read(buffer) > 0) {
+                parseLines(buffer);
+            } else if (!sleep(TAIL_POLL_MILLIS)) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Parse every complete line in the buffer and keep the partial last
+     * line for the next read
+     */
+    private void parseLines(ByteBuffer buffer) throws InterruptedException {
+        byte[] bytes = buffer.array();
+        int end = buffer.position();
+        int lineStart = 0;
+        for (int i = 0; i < end; i++) {
+            if (bytes[i] == '\n') {
+                parseLine(bytes, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        
+        if (lineStart == 0 && end == bytes.length) {
+            // A line longer than the whole buffer can only be garbage
+            malformed++;
+            buffer.clear();
+            return;
+        }
+        System.arraycopy(bytes, lineStart, bytes, 0, end - lineStart);
+        buffer.position(end - lineStart);
+    }
+    
+    private void parseLine(byte[] bytes, int start, int end) throws InterruptedException {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return;
+        }
+        linesRead++;
+        
+        int firstComma = indexOf(bytes, start, end, (byte) ',');
+        int secondComma = firstComma < 0 ? -1 : indexOf(bytes, firstComma + 1, end, (byte) ',');
+        if (secondComma < 0) {
+            malformed++;
+            return;
+        }
+        long buying = Money.parse(bytes, firstComma + 1, secondComma);
+        long selling = Money.parse(bytes, secondComma + 1, end);
+        if (buying <= 0 || selling <= 0) {
+            // Also skips a header line, whose prices are not numbers
+            malformed++;
+            return;
+        }
+        int symbolId = symbolId(bytes, start, firstComma);
+        if (symbolId < 0) {
+            malformed++;
+            return;
+        }
+        queue.offer(symbolId, buying, selling, System.currentTimeMillis());
+    }
+    
+    private static int indexOf(byte[] bytes, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Symbol id of the trimmed, upper-cased bytes, or -1 if empty; repeated
+     * symbols are answered from a small cache without allocating
+     */
+    private int symbolId(byte[] bytes, int start, int end) {
+        while (start < end && bytes[start] == ' ') {
+            start++;
+        }
+        while (end > start && bytes[end - 1] == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return -1;
+        }
+        
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + upper(bytes[i]);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (SYMBOL_CACHE_SIZE - 1);
+        byte[] cached = cachedSymbolBytes[slot];
+        if (cached != null && cached.length == end - start) {
+            boolean same = true;
+            for (int i = 0; i < cached.length && same; i++) {
+                same = cached[i] == upper(bytes[start + i]);
+            }
+            if (same) {
+                return cachedSymbolIds[slot];
+            }
+        }
+        
+        byte[] symbol = new byte[end - start];
+        for (int i = 0; i < symbol.length; i++) {
+            symbol[i] = upper(bytes[start + i]);
+        }
+        int id = symbols.idOf(new String(symbol, StandardCharsets.UTF_8));
+        cachedSymbolBytes[slot] = symbol;
+        cachedSymbolIds[slot] = id;
+        return id;
+    }
+    
+    private static byte upper(byte b) {
+        return b >= 'a' && b <= 'z' ? (byte) (b - 32) : b;
+    }
+    
+    private void drainLoop() {
+        TickBatch[] batches = {new TickBatch(batchSize), new TickBatch(batchSize)};
+        int next = 0;
+        try {
+            while (running) {
+                TickBatch batch = batches[next];
+                int n = queue.drain(batch, DRAIN_WAIT_MILLIS);
+                if (n < 0) {
+                    break;
+                }
+                if (n == 0) {
+                    continue;
+                }
+                batch.calculate();
+                
+                // Wait for the EDT to finish the previous batch before posting
+                batchOnEdt.acquire();
+                SwingUtilities.invokeLater(() -> {
+                    try {
+                        if (running) {
+                            onBatch.accept(batch);
+                        }
+                    } finally {
+                        batchOnEdt.release();
+                    }
+                });
+                next ^= 1;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void closeChannel() {
+        ReadableByteChannel current = channel;
+        channel = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+    }
+    
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
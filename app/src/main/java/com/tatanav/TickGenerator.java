@@ -0,0 +1,171 @@
+package com.tatanav;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Tick Generator - Stand-in price source for the tick feed
+ * Produces symbol,buying,selling lines from a random walk per symbol at a
+ * fixed rate, either to every client of a local TCP port or appended to a
+ * file that the feed tails.
+ *
+ * Usage:
+ *   java -jar TataNavCalculator.jar --generate-ticks (--tcp PORT | --file PATH)
+ *        [--rate TICKS_PER_SEC] [--symbols N]
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class TickGenerator {
+    
+    private static final String[] NAMED_SYMBOLS = {
+        "TATASTEEL", "TCS", "TATAMOTORS", "TATAPOWER", "TITAN", "TATACHEM", "TATACOMM", "TATAELXSI"
+    };
+    private static final int CHUNKS_PER_SECOND = 100;
+    
+    private final String[] symbols;
+    private final double[] prices;
+    private final SplittableRandom random = new SplittableRandom();
+    private final StringBuilder line = new StringBuilder(64);
+    private final int rate;
+    
+    private TickGenerator(int symbolCount, int rate) {
+        this.rate = rate;
+        symbols = new String[symbolCount];
+        prices = new double[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            symbols[i] = i < NAMED_SYMBOLS.length ? NAMED_SYMBOLS[i] : String.format("SYM%04d", i);
+            prices[i] = 100 + random.nextDouble() * 900;
+        }
+    }
+    
+    /**
+     * Run the generator from command-line arguments; returns the exit code
+     */
+    static int run(String[] args) {
+        Integer port = null;
+        String file = null;
+        int rate = 1000;
+        int symbolCount = NAMED_SYMBOLS.length;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--tcp":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--file":
+                        file = args[++i];
+                        break;
+                    case "--rate":
+                        rate = Integer.parseInt(args[++i]);
+                        break;
+                    case "--symbols":
+                        symbolCount = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        printUsage();
+                        return 2;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            printUsage();
+            return 2;
+        }
+        if ((port == null) == (file == null) || rate <= 0 || symbolCount <= 0) {
+            printUsage();
+            return 2;
+        }
+        
+        TickGenerator generator = new TickGenerator(symbolCount, rate);
+        try {
+            if (port != null) {
+                generator.serve(port);
+            } else {
+                try (FileChannel out = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    System.out.println("Appending " + rate + " ticks/sec to " + file);
+                    generator.stream(out);
+                }
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Tick generator failed: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    private static void printUsage() {
+        System.err.println("Usage: java -jar TataNavCalculator.jar --generate-ticks (--tcp PORT | --file PATH)"
+            + " [--rate TICKS_PER_SEC] [--symbols N]");
+    }
+    
+    /**
+     * Accept clients one after another and stream ticks to each until it disconnects
+     */
+    private void serve(int port) throws IOException {
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("127.0.0.1", port));
+            System.out.println("Serving " + rate + " ticks/sec on tcp://127.0.0.1:" + port);
+            while (true) {
+                try (SocketChannel client = server.accept()) {
+                    System.out.println("Client connected: " + client.getRemoteAddress());
+                    stream(client);
+                } catch (IOException e) {
+                    System.out.println("Client disconnected: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write ticks at the configured rate until the channel fails
+     */
+    private void stream(WritableByteChannel out) throws IOException {
+        int perChunk = Math.max(1, rate / CHUNKS_PER_SECOND);
+        long chunkNanos = 1000000000L * perChunk / rate;
+        ByteBuffer buffer = ByteBuffer.allocate(perChunk * 48 + 64);
+        long next = System.nanoTime();
+        while (true) {
+            buffer.clear();
+            for (int i = 0; i < perChunk; i++) {
+                appendTick(buffer);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            
+            next += chunkNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void appendTick(ByteBuffer buffer) {
+        int i = random.nextInt(symbols.length);
+        prices[i] = Math.max(1, prices[i] * (1 + (random.nextDouble() - 0.5) * 0.002));
+        double spread = prices[i] * random.nextDouble() * 0.05;
+        
+        line.setLength(0);
+        line.append(symbols[i]).append(',');
+        DecimalText.appendFixed(line, prices[i], 2).append(',');
+        DecimalText.appendFixed(line, prices[i] + spread, 2).append('\n');
+        for (int c = 0; c < line.length(); c++) {
+            buffer.put((byte) line.charAt(c));
+        }
+    }
+}
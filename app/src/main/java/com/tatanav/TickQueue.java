@@ -0,0 +1,216 @@
+package com.tatanav;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tick Queue - Bounded hand-off of price ticks from a feed reader
+ * Ticks are stored by SymbolTable id, with prices in paise, in primitive
+ * columns of a fixed ring.
+ * What happens when a symbol ticks again, or the ring is full, depends on
+ * the Policy:
+ *   COALESCE - a pending tick of the same symbol is overwritten in place,
+ *              so at most one tick per symbol waits; a full ring blocks
+ *   DROP     - every tick is queued; ticks arriving at a full ring are
+ *              dropped and counted
+ *   BLOCK    - every tick is queued; the reader waits for room, which
+ *              pushes back on the socket or file it reads
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class TickQueue {
+    
+    /**
+     * Handling of repeated symbols and of a full queue
+     */
+    enum Policy {
+        COALESCE, DROP, BLOCK
+    }
+    
+    private final int capacity;
+    private final Policy policy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    
+    // Ring columns
+    private final int[] symbolIds;
+    private final long[] buying;
+    private final long[] selling;
+    private final long[] timestamps;
+    private int head;
+    private int count;
+    
+    // Ring slot of each symbol's waiting tick, or -1 (COALESCE only)
+    private int[] pendingSlots = new int[0];
+    
+    private long accepted;
+    private long coalesced;
+    private long dropped;
+    private boolean closed;
+    
+    TickQueue(int capacity, Policy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Tick queue capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        symbolIds = new int[capacity];
+        buying = new long[capacity];
+        selling = new long[capacity];
+        timestamps = new long[capacity];
+    }
+    
+    /**
+     * Add a tick according to the policy. Returns false if the tick was
+     * dropped or the queue is closed.
+     */
+    boolean offer(int symbolId, long buyingPrice, long sellingPrice, long timestamp)
+            throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (closed) {
+                return false;
+            }
+            accepted++;
+            
+            if (policy == Policy.COALESCE) {
+                if (symbolId >= pendingSlots.length) {
+                    int old = pendingSlots.length;
+                    pendingSlots = Arrays.copyOf(pendingSlots, Math.max(symbolId + 1, old * 2));
+                    Arrays.fill(pendingSlots, old, pendingSlots.length, -1);
+                }
+                int slot = pendingSlots[symbolId];
+                if (slot >= 0) {
+                    buying[slot] = buyingPrice;
+                    selling[slot] = sellingPrice;
+                    timestamps[slot] = timestamp;
+                    coalesced++;
+                    return true;
+                }
+            }
+            
+            while (count == capacity) {
+                if (policy == Policy.DROP) {
+                    dropped++;
+                    return false;
+                }
+                notFull.await();
+                if (closed) {
+                    return false;
+                }
+            }
+            
+            int slot = head + count;
+            if (slot >= capacity) {
+                slot -= capacity;
+            }
+            symbolIds[slot] = symbolId;
+            buying[slot] = buyingPrice;
+            selling[slot] = sellingPrice;
+            timestamps[slot] = timestamp;
+            if (policy == Policy.COALESCE) {
+                pendingSlots[symbolId] = slot;
+            }
+            if (count++ == 0) {
+                notEmpty.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Move up to batch capacity ticks into the batch, waiting up to
+     * timeoutMillis for the first one. Returns the number moved, or -1 once
+     * the queue is closed and empty.
+     */
+    int drain(TickBatch batch, long timeoutMillis) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (count == 0) {
+                if (closed) {
+                    return -1;
+                }
+                if (remaining <= 0) {
+                    batch.count = 0;
+                    return 0;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            
+            int n = Math.min(count, batch.capacity());
+            for (int i = 0; i < n; i++) {
+                int slot = head + i;
+                if (slot >= capacity) {
+                    slot -= capacity;
+                }
+                int id = symbolIds[slot];
+                batch.symbolIds[i] = id;
+                batch.buying[i] = buying[slot];
+                batch.selling[i] = selling[slot];
+                batch.timestamps[i] = timestamps[slot];
+                if (policy == Policy.COALESCE) {
+                    pendingSlots[id] = -1;
+                }
+            }
+            batch.count = n;
+            head = (head + n) % capacity;
+            count -= n;
+            notFull.signalAll();
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Stop accepting ticks and wake every waiting thread
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    Policy policy() {
+        return policy;
+    }
+    
+    long accepted() {
+        lock.lock();
+        try {
+            return accepted;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    long coalesced() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    long dropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.tatanav;
+
+/**
+ * Time Range Index - Time-ordered view of the history with ranked queries
+ * Records are ordered by timestamp, so the records between two times are
+ * one contiguous run found by binary search. A second ordering groups the
+ * records of each symbol, again in time order, so a symbol's run is found
+ * the same way. Over both orderings, block range-best tables for NAV and
+ * P/L % give the highest or lowest record of any run by scanning at most
+ * two partial blocks. Top-K keeps a heap of runs keyed by their best
+ * record: it pops a run, reports its best record and pushes the two runs
+ * either side of it, so k answers cost O(log n + k log k) however long the
+ * run is.
+ *
+ * Built off the EDT from a snapshot of the store, like the table index.
+ * Results are offsets from firstSequence; records evicted since the build
+ * are no longer in the store.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class TimeRangeIndex {
+    
+    /**
+     * Value records are ranked by
+     */
+    enum Measure {
+        NAV("NAV"),
+        PROFIT_LOSS_PERCENT("P/L %");
+        
+        final String label;
+        
+        Measure(String label) {
+            this.label = label;
+        }
+        
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+    
+    private static final int[] NONE = new int[0];
+    
+    final long firstSequence;
+    final int count;
+    
+    // In time order: timestamp, offset from firstSequence and sort keys
+    private final long[] times;
+    private final int[] offsets;
+    private final long[] navKeys;
+    private final long[] percentKeys;
+    
+    // Time-order positions grouped by symbol id; symbol s holds
+    // bySymbol[symbolStarts[s], symbolStarts[s + 1])
+    private final int[] bySymbol;
+    private final int[] symbolStarts;
+    
+    // Indexed by measure ordinal * 2 + (highest ? 0 : 1)
+    private final RangeBest[] ranks;
+    private final RangeBest[] symbolRanks;
+    
+    private TimeRangeIndex(long firstSequence, int count, int[] symbolIds, long[] navPaise,
+                           double[] percents, long[] timestamps, int symbolCount) {
+        this.firstSequence = firstSequence;
+        this.count = count;
+        
+        long[] timeKeys = new long[count];
+        for (int i = 0; i < count; i++) {
+            timeKeys[i] = SortIndex.signedKey(timestamps[i]);
+        }
+        offsets = SortIndex.order(timeKeys, count);
+        times = new long[count];
+        navKeys = new long[count];
+        percentKeys = new long[count];
+        for (int p = 0; p < count; p++) {
+            int offset = offsets[p];
+            times[p] = timestamps[offset];
+            navKeys[p] = SortIndex.signedKey(navPaise[offset]);
+            percentKeys[p] = SortIndex.doubleKey(percents[offset]);
+        }
+        
+        // Counting sort by symbol id keeps each symbol's records in time order
+        symbolStarts = new int[symbolCount + 1];
+        for (int i = 0; i < count; i++) {
+            symbolStarts[symbolIds[i] + 1]++;
+        }
+        for (int s = 0; s < symbolCount; s++) {
+            symbolStarts[s + 1] += symbolStarts[s];
+        }
+        int[] next = new int[symbolCount];
+        System.arraycopy(symbolStarts, 0, next, 0, symbolCount);
+        bySymbol = new int[count];
+        for (int p = 0; p < count; p++) {
+            bySymbol[next[symbolIds[offsets[p]]]++] = p;
+        }
+        
+        ranks = new RangeBest[4];
+        symbolRanks = new RangeBest[4];
+        for (Measure measure : Measure.values()) {
+            long[] keys = measure == Measure.NAV ? navKeys : percentKeys;
+            for (int lowest = 0; lowest < 2; lowest++) {
+                ranks[measure.ordinal() * 2 + lowest] = new RangeBest(keys, null, count, lowest == 1);
+                symbolRanks[measure.ordinal() * 2 + lowest] = new RangeBest(keys, bySymbol, count, lowest == 1);
+            }
+        }
+    }
+    
+    /**
+     * Index the records [fromSequence, toSequence) still retained. Safe to
+     * call off the EDT, as it works on a snapshot.
+     */
+    static TimeRangeIndex build(HistoryStore history, long fromSequence, long toSequence) {
+        HistoryStore.Batch records = history.snapshot(fromSequence, toSequence);
+        int count = records.count;
+        int[] symbolIds = records.symbolIds;
+        
+        // Symbols first seen after the copy have ids past those in it
+        int symbolCount = 0;
+        for (int i = 0; i < count; i++) {
+            symbolCount = Math.max(symbolCount, symbolIds[i] + 1);
+        }
+        return new TimeRangeIndex(records.firstSequence, count, symbolIds, records.navPaise,
+            records.profitLossPercent, records.timestamps, symbolCount);
+    }
+    
+    /**
+     * Offsets of the records with fromTime <= timestamp < toTime, oldest
+     * first, of one symbol id or of all when symbolId is negative
+     */
+    int[] range(long fromTime, long toTime, int symbolId) {
+        int[] order = orderOf(symbolId);
+        int start = runStart(symbolId);
+        int end = runEnd(symbolId);
+        int from = lowerBound(order, start, end, fromTime);
+        int to = Math.max(from, lowerBound(order, from, end, toTime));
+        
+        int[] result = new int[to - from];
+        for (int p = from; p < to; p++) {
+            result[p - from] = offsetAt(order, p);
+        }
+        return result;
+    }
+    
+    /**
+     * Offsets of up to k records with fromTime <= timestamp < toTime that
+     * rank highest (or lowest) by measure, best first; of one symbol id or
+     * of all when symbolId is negative. Equal values go to the older record.
+     */
+    int[] top(Measure measure, boolean highest, int k, long fromTime, long toTime, int symbolId) {
+        int[] order = orderOf(symbolId);
+        int start = runStart(symbolId);
+        int end = runEnd(symbolId);
+        int from = lowerBound(order, start, end, fromTime);
+        int to = Math.max(from, lowerBound(order, from, end, toTime));
+        k = Math.min(k, to - from);
+        if (k <= 0) {
+            return NONE;
+        }
+        
+        int rank = measure.ordinal() * 2 + (highest ? 0 : 1);
+        RangeBest best = symbolId < 0 ? ranks[rank] : symbolRanks[rank];
+        RunHeap heap = new RunHeap(best, k + 1);
+        heap.push(from, to);
+        int[] result = new int[k];
+        for (int n = 0; n < k; n++) {
+            int position = heap.peekBest();
+            int runFrom = heap.peekFrom();
+            int runTo = heap.peekTo();
+            heap.pop();
+            result[n] = offsetAt(order, position);
+            heap.push(runFrom, position);
+            heap.push(position + 1, runTo);
+        }
+        return result;
+    }
+    
+    /**
+     * Oldest and newest timestamps indexed, or 0 and 0 when empty
+     */
+    long earliest() {
+        return count == 0 ? 0 : times[0];
+    }
+    
+    long latest() {
+        return count == 0 ? 0 : times[count - 1];
+    }
+    
+    private int[] orderOf(int symbolId) {
+        return symbolId < 0 ? null : bySymbol;
+    }
+    
+    private int runStart(int symbolId) {
+        if (symbolId < 0) {
+            return 0;
+        }
+        return symbolId < symbolStarts.length - 1 ? symbolStarts[symbolId] : 0;
+    }
+    
+    private int runEnd(int symbolId) {
+        if (symbolId < 0) {
+            return count;
+        }
+        return symbolId < symbolStarts.length - 1 ? symbolStarts[symbolId + 1] : 0;
+    }
+    
+    private int offsetAt(int[] order, int position) {
+        return offsets[order == null ? position : order[position]];
+    }
+    
+    /**
+     * First position in [from, to) whose timestamp is at least time, or to
+     */
+    private int lowerBound(int[] order, int from, int to, long time) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long t = times[order == null ? middle : order[middle]];
+            if (t < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Best key of any run of positions in an ordering. Positions are cut
+     * into blocks; a sparse table holds the best position of every run of
+     * 2^level whole blocks, so a query reads two table entries and scans
+     * the partial blocks at either end.
+     */
+    private static final class RangeBest {
+        private static final int BLOCK_SHIFT = 7;
+        private static final int BLOCK = 1 << BLOCK_SHIFT;
+        
+        private final long[] keys;
+        private final int[] order;
+        private final boolean lowest;
+        // table[level][block] = best position in blocks [block, block + 2^level)
+        private final int[][] table;
+        
+        /**
+         * keys are unsigned-ordered and in time order; order maps positions
+         * to time-order positions, or is null for time order itself
+         */
+        RangeBest(long[] keys, int[] order, int count, boolean lowest) {
+            this.keys = keys;
+            this.order = order;
+            this.lowest = lowest;
+            
+            int blocks = (count + BLOCK - 1) >>> BLOCK_SHIFT;
+            int levels = 1;
+            while (1 << levels <= blocks) {
+                levels++;
+            }
+            table = new int[levels][];
+            table[0] = new int[blocks];
+            for (int b = 0; b < blocks; b++) {
+                table[0][b] = scan(b << BLOCK_SHIFT, Math.min(count, (b + 1) << BLOCK_SHIFT));
+            }
+            for (int level = 1; level < levels; level++) {
+                int span = 1 << (level - 1);
+                int[] below = table[level - 1];
+                int[] row = new int[blocks - (1 << level) + 1];
+                for (int b = 0; b < row.length; b++) {
+                    row[b] = better(below[b], below[b + span]);
+                }
+                table[level] = row;
+            }
+        }
+        
+        long key(int position) {
+            return keys[order == null ? position : order[position]];
+        }
+        
+        /**
+         * Whichever position ranks first; equal keys go to the earlier one
+         */
+        int better(int a, int b) {
+            int compare = Long.compareUnsigned(key(a), key(b));
+            if (compare == 0) {
+                return Math.min(a, b);
+            }
+            return (compare > 0) != lowest ? a : b;
+        }
+        
+        /**
+         * Best position in [from, to), which is not empty
+         */
+        int best(int from, int to) {
+            int firstBlock = (from + BLOCK - 1) >>> BLOCK_SHIFT;
+            int lastBlock = to >>> BLOCK_SHIFT;
+            if (firstBlock >= lastBlock) {
+                return scan(from, to);
+            }
+            int level = 31 - Integer.numberOfLeadingZeros(lastBlock - firstBlock);
+            int best = better(table[level][firstBlock], table[level][lastBlock - (1 << level)]);
+            if (from < firstBlock << BLOCK_SHIFT) {
+                best = better(scan(from, firstBlock << BLOCK_SHIFT), best);
+            }
+            if (to > lastBlock << BLOCK_SHIFT) {
+                best = better(best, scan(lastBlock << BLOCK_SHIFT, to));
+            }
+            return best;
+        }
+        
+        private int scan(int from, int to) {
+            int best = from;
+            long bestKey = key(from);
+            for (int p = from + 1; p < to; p++) {
+                long key = key(p);
+                int compare = Long.compareUnsigned(key, bestKey);
+                if (lowest ? compare < 0 : compare > 0) {
+                    best = p;
+                    bestKey = key;
+                }
+            }
+            return best;
+        }
+    }
+    
+    /**
+     * Binary heap of runs [from, to) ordered by their best position
+     */
+    private static final class RunHeap {
+        private final RangeBest rank;
+        private final int[] from;
+        private final int[] to;
+        private final int[] best;
+        private int size;
+        
+        RunHeap(RangeBest rank, int capacity) {
+            this.rank = rank;
+            this.from = new int[capacity];
+            this.to = new int[capacity];
+            this.best = new int[capacity];
+        }
+        
+        /**
+         * Add a run; empty runs are ignored
+         */
+        void push(int runFrom, int runTo) {
+            if (runFrom >= runTo) {
+                return;
+            }
+            int i = size++;
+            int runBest = rank.best(runFrom, runTo);
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (rank.better(best[parent], runBest) == best[parent]) {
+                    break;
+                }
+                set(i, from[parent], to[parent], best[parent]);
+                i = parent;
+            }
+            set(i, runFrom, runTo, runBest);
+        }
+        
+        int peekBest() {
+            return best[0];
+        }
+        
+        int peekFrom() {
+            return from[0];
+        }
+        
+        int peekTo() {
+            return to[0];
+        }
+        
+        void pop() {
+            size--;
+            int lastFrom = from[size];
+            int lastTo = to[size];
+            int lastBest = best[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && rank.better(best[child + 1], best[child]) == best[child + 1]) {
+                    child++;
+                }
+                if (rank.better(lastBest, best[child]) == lastBest) {
+                    break;
+                }
+                set(i, from[child], to[child], best[child]);
+                i = child;
+            }
+            set(i, lastFrom, lastTo, lastBest);
+        }
+        
+        private void set(int i, int runFrom, int runTo, int runBest) {
+            from[i] = runFrom;
+            to[i] = runTo;
+            best[i] = runBest;
+        }
+    }
+}
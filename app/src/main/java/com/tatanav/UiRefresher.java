@@ -0,0 +1,71 @@
+package com.tatanav;
+
+import java.util.function.IntConsumer;
+import javax.swing.Timer;
+
+/**
+ * UI Refresher - Coalesces display updates into at most one per frame
+ * Producers mark parts of the window dirty as data arrives; a one-shot
+ * Swing timer then publishes everything marked since the last frame in a
+ * single call. An isolated update is shown at once, while a burst costs
+ * one refresh per frame however many calculations it contains.
+ *
+ * Use from the EDT only.
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+final class UiRefresher {
+    
+    static final int RESULTS = 1;
+    static final int NAV = 1 << 1;
+    static final int GRAPH = 1 << 2;
+    static final int CHART_MODE = 1 << 3;
+    static final int STATUS = 1 << 4;
+    
+    private final IntConsumer publisher;
+    private final long frameNanos;
+    private final Timer timer;
+    private int dirty;
+    private long lastPublish;
+    
+    /**
+     * @param framesPerSecond maximum refresh rate
+     * @param publisher refreshes the parts named by the dirty flags
+     */
+    UiRefresher(int framesPerSecond, IntConsumer publisher) {
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException("Refresh rate must be positive: " + framesPerSecond);
+        }
+        this.publisher = publisher;
+        this.frameNanos = 1000000000L / framesPerSecond;
+        this.lastPublish = System.nanoTime() - frameNanos;
+        timer = new Timer(0, e -> flush());
+        timer.setRepeats(false);
+    }
+    
+    /**
+     * Mark parts of the window for the next frame
+     */
+    void mark(int flags) {
+        dirty |= flags;
+        if (!timer.isRunning()) {
+            long wait = frameNanos - (System.nanoTime() - lastPublish);
+            timer.setInitialDelay((int) Math.max(0, wait / 1000000));
+            timer.start();
+        }
+    }
+    
+    /**
+     * Publish anything pending now, without waiting for the frame
+     */
+    void flush() {
+        timer.stop();
+        int flags = dirty;
+        dirty = 0;
+        lastPublish = System.nanoTime();
+        if (flags != 0) {
+            publisher.accept(flags);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.tatanav;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Graph Panel Benchmark - Headless chart rendering into a BufferedImage
+ * paintCached repaints unchanged data and only blits the cached layers;
+ * paintAfterAppend adds a value first, so the series layer is rebuilt
+ * the way it is after every calculation; paintComparisonAfterAppend does
+ * the same with SYMBOLS series of the given length on one chart
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GraphPanelBenchmark {
+    
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 400;
+    private static final int SYMBOLS = 20;
+    
+    @Param({"10", "1000", "100000"})
+    public int points;
+    
+    private GraphPanel panel;
+    private GraphPanel comparisonPanel;
+    private NavSeries[] comparedSeries;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void prepare() {
+        panel = new GraphPanel(points);
+        panel.setSize(WIDTH, HEIGHT);
+        for (int i = 0; i < points; i++) {
+            panel.append(valueAt(i));
+        }
+        next = points;
+        
+        String[] symbols = new String[SYMBOLS];
+        comparedSeries = new NavSeries[SYMBOLS];
+        for (int s = 0; s < SYMBOLS; s++) {
+            symbols[s] = "SYM" + s;
+            comparedSeries[s] = new NavSeries(points);
+            for (int i = 0; i < points; i++) {
+                comparedSeries[s].append(valueAt(i + s * 97) + s * 10);
+            }
+        }
+        comparisonPanel = new GraphPanel(1);
+        comparisonPanel.setSize(WIDTH, HEIGHT);
+        comparisonPanel.showComparison(symbols, comparedSeries, true);
+        
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        panel.paintComponent(graphics);
+        comparisonPanel.paintComponent(graphics);
+    }
+    
+    @TearDown(Level.Trial)
+    public void dispose() {
+        graphics.dispose();
+    }
+    
+    private static double valueAt(int i) {
+        return 1000 + Math.sin(i / 50.0) * 40 + (i * 7919 % 23);
+    }
+    
+    @Benchmark
+    public BufferedImage paintCached() {
+        panel.paintComponent(graphics);
+        return image;
+    }
+    
+    @Benchmark
+    public BufferedImage paintAfterAppend() {
+        panel.append(valueAt(next++));
+        panel.paintComponent(graphics);
+        return image;
+    }
+    
+    @Benchmark
+    public BufferedImage paintComparisonAfterAppend() {
+        comparedSeries[next % SYMBOLS].append(valueAt(next++));
+        comparisonPanel.paintComponent(graphics);
+        return image;
+    }
+}
@@ -0,0 +1,100 @@
+package com.tatanav;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * History Query Benchmark - Time-range and top-K queries over the history
+ * topTenInRange and topTenForSymbol answer "ten worst P/L % calls" over
+ * the newest quarter of the records through the TimeRangeIndex; scanTopTen
+ * answers the first by walking the store for comparison, and buildIndex
+ * is the cost of indexing it all
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class HistoryQueryBenchmark {
+    
+    private static final int SYMBOLS = 500;
+    private static final int K = 10;
+    private static final long START = 1700000000000L;
+    
+    @Param({"1000000", "4000000"})
+    public int records;
+    
+    private HistoryStore history;
+    private TimeRangeIndex index;
+    private long from;
+    private long to;
+    private int symbolId;
+    
+    @Setup(Level.Trial)
+    public void fill() {
+        SymbolTable symbols = new SymbolTable();
+        history = new HistoryStore(records, symbols);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < records; i++) {
+            long buying = 10000 + random.nextInt(100000);
+            long selling = buying + random.nextInt(20001) - 10000;
+            long nav = NavEngine.calculateNavPaise(buying, selling);
+            history.append("SYM" + random.nextInt(SYMBOLS), buying, selling, nav,
+                NavEngine.profitLossPaise(buying, selling), NavEngine.profitLossPercentPaise(buying, selling),
+                START + i * 10L);
+        }
+        index = TimeRangeIndex.build(history, history.firstSequence(), history.endSequence());
+        from = START + records * 7L;
+        to = START + records * 10L;
+        symbolId = symbols.find("SYM7");
+    }
+    
+    @Benchmark
+    public int[] topTenInRange() {
+        return index.top(TimeRangeIndex.Measure.PROFIT_LOSS_PERCENT, false, K, from, to, -1);
+    }
+    
+    @Benchmark
+    public int[] topTenForSymbol() {
+        return index.top(TimeRangeIndex.Measure.PROFIT_LOSS_PERCENT, false, K, from, to, symbolId);
+    }
+    
+    @Benchmark
+    public int[] scanTopTen() {
+        // Insertion into a sorted array of the K lowest seen so far
+        int[] best = new int[K];
+        double[] values = new double[K];
+        int n = 0;
+        for (int i = 0; i < history.size(); i++) {
+            long time = history.timestamp(i);
+            if (time < from || time >= to) {
+                continue;
+            }
+            double value = history.profitLossPercent(i);
+            if (n == K && value >= values[K - 1]) {
+                continue;
+            }
+            int j = n < K ? n++ : K - 1;
+            while (j > 0 && values[j - 1] > value) {
+                values[j] = values[j - 1];
+                best[j] = best[j - 1];
+                j--;
+            }
+            values[j] = value;
+            best[j] = i;
+        }
+        return best;
+    }
+    
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public TimeRangeIndex buildIndex() {
+        return TimeRangeIndex.build(history, history.firstSequence(), history.endSequence());
+    }
+}
@@ -0,0 +1,68 @@
+package com.tatanav;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * History Update Benchmark - The bookkeeping done by completeCalculation
+ * Appends into a full history ring and chart series, so every operation
+ * takes the eviction path the application runs in steady state
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryUpdateBenchmark {
+    
+    private static final String[] SYMBOLS = {"TATASTEEL", "TCS", "TATAMOTORS", "TATAPOWER", "TITAN"};
+    
+    @Param({"50", "100000"})
+    public int capacity;
+    
+    private HistoryStore history;
+    private NavSeries series;
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void fill() {
+        history = new HistoryStore(capacity, new SymbolTable());
+        series = new NavSeries(capacity);
+        for (int i = 0; i < capacity; i++) {
+            appendOne(i);
+        }
+    }
+    
+    private void appendOne(int i) {
+        long buying = (1000 + (i & 255)) * Money.SCALE;
+        long selling = buying + 25 * Money.SCALE;
+        long nav = NavEngine.calculateNavPaise(buying, selling, 0.5, i * 1000L);
+        history.append(SYMBOLS[i % SYMBOLS.length], buying, selling, nav,
+            NavEngine.profitLossPaise(buying, selling), NavEngine.profitLossPercentPaise(buying, selling),
+            i * 1000L);
+        series.append(Money.toRupees(nav));
+    }
+    
+    @Benchmark
+    public long historyAppend() {
+        int i = next++;
+        history.append(SYMBOLS[i % SYMBOLS.length], 100000, 102500, 101250, 2500, 2.5, i);
+        return history.appendedCount();
+    }
+    
+    @Benchmark
+    public double seriesAppend() {
+        series.append(1000 + (next++ & 1023));
+        return series.max();
+    }
+    
+    @Benchmark
+    public long historyAndSeriesAppend() {
+        appendOne(next++);
+        return history.appendedCount();
+    }
+}
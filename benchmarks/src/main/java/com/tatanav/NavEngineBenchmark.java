@@ -0,0 +1,41 @@
+package com.tatanav;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * NAV Engine Benchmark - Cost of a single NAV calculation
+ * Measures both the entry point used by the UI, which draws its own
+ * randomness and clock, and the pure model with fixed inputs
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavEngineBenchmark {
+    
+    private double buying = 1000.0;
+    private double selling = 1050.0;
+    private double random = 0.42;
+    private long timeMillis = 1700000000000L;
+    
+    @Benchmark
+    public double calculateNAV() {
+        return NavEngine.calculateNAV(buying, selling);
+    }
+    
+    @Benchmark
+    public double calculateNAVModelOnly() {
+        return NavEngine.calculateNAV(buying, selling, random, timeMillis);
+    }
+    
+    @Benchmark
+    public double profitLossPercent() {
+        return NavEngine.profitLossPercent(buying, selling);
+    }
+}
@@ -0,0 +1,62 @@
+package com.tatanav;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Portfolio Benchmark - Cost of revaluing a portfolio on one price update
+ * Marks a random holding at a new price, which should cost the same at
+ * 1k holdings as at 100k; the full re-sum is measured for comparison
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortfolioBenchmark {
+    
+    @Param({"1000", "100000"})
+    public int holdings;
+    
+    private Portfolio portfolio;
+    private long[] quantities;
+    private long[] prices;
+    private final SplittableRandom random = new SplittableRandom(42);
+    
+    @Setup(Level.Trial)
+    public void fill() {
+        SymbolTable symbols = new SymbolTable();
+        portfolio = new Portfolio(symbols);
+        quantities = new long[holdings];
+        prices = new long[holdings];
+        for (int i = 0; i < holdings; i++) {
+            int id = symbols.idOf("SYM" + i);
+            quantities[id] = 1 + random.nextInt(1000);
+            prices[id] = 10000 + random.nextInt(100000);
+            portfolio.add(id, quantities[id], prices[id], prices[id]);
+        }
+    }
+    
+    @Benchmark
+    public long markOneHolding() {
+        int id = random.nextInt(holdings);
+        portfolio.mark(id, 10000 + random.nextInt(100000));
+        return portfolio.value();
+    }
+    
+    @Benchmark
+    public long resumAllHoldings() {
+        int id = random.nextInt(holdings);
+        prices[id] = 10000 + random.nextInt(100000);
+        long value = 0;
+        for (int i = 0; i < holdings; i++) {
+            value += quantities[i] * prices[i];
+        }
+        return value;
+    }
+}
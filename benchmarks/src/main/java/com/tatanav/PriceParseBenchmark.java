@@ -0,0 +1,40 @@
+package com.tatanav;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Price Parse Benchmark - Cost of turning price text into a number
+ * Compares the in-place fixed-point parser on text and on raw bytes with
+ * the trim-and-parseDouble path it replaced
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceParseBenchmark {
+    
+    private String text = " 1234.56 ";
+    private byte[] bytes = "TATASTEEL,1234.56,1250.05".getBytes(StandardCharsets.US_ASCII);
+    
+    @Benchmark
+    public long moneyParseText() {
+        return Money.parse(text);
+    }
+    
+    @Benchmark
+    public long moneyParseBytes() {
+        return Money.parse(bytes, 10, 17);
+    }
+    
+    @Benchmark
+    public double parseDouble() {
+        return Double.parseDouble(text.trim());
+    }
+}
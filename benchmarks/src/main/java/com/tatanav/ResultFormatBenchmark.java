@@ -0,0 +1,50 @@
+package com.tatanav;
+
+import java.text.SimpleDateFormat;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Result Format Benchmark - Cost of formatting the boxed block of one result
+ * The results log formats lines lazily as they scroll into view; this is
+ * the cost of a whole block becoming visible
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultFormatBenchmark {
+    
+    private SimpleDateFormat dateFormat;
+    private TataNavCalculator.NavCalculation profit;
+    private TataNavCalculator.NavCalculation loss;
+    
+    @Setup(Level.Trial)
+    public void prepare() {
+        dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        profit = new TataNavCalculator.NavCalculation("TATASTEEL", 100000, 105000, 102437,
+            5000, 5.0, 1700000000000L);
+        loss = new TataNavCalculator.NavCalculation("TCS", 350000, 341050, 345281,
+            -8950, -2.557, 1700000000000L);
+    }
+    
+    @Benchmark
+    public void formatProfit(Blackhole blackhole) {
+        for (int line = 0; line < TataNavCalculator.RESULT_LINES; line++) {
+            blackhole.consume(TataNavCalculator.resultLine(profit, line, dateFormat));
+        }
+    }
+    
+    @Benchmark
+    public void formatLoss(Blackhole blackhole) {
+        for (int line = 0; line < TataNavCalculator.RESULT_LINES; line++) {
+            blackhole.consume(TataNavCalculator.resultLine(loss, line, dateFormat));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.tatanav;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Revaluation Benchmark - Revaluing the whole history under a new NAV model
+ * revalue is the parallel NAV phase on the common fork-join pool, and
+ * revalueAndReplay adds rebuilding the per-symbol statistics from it
+ *
+ * @author Development Team
+ * @version 2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RevaluationBenchmark {
+    
+    private static final int SYMBOLS = 500;
+    private static final long START = 1700000000000L;
+    private static final NavModel MODEL = new NavModel(7.5, 3.0, 500000.0);
+    
+    @Param({"1000000", "10000000"})
+    public int records;
+    
+    private HistoryStore history;
+    
+    @Setup(Level.Trial)
+    public void fill() {
+        history = new HistoryStore(records, new SymbolTable());
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < records; i++) {
+            long buying = 10000 + random.nextInt(100000);
+            long selling = buying + random.nextInt(20001) - 10000;
+            long timestamp = START + i * 10L;
+            history.append("SYM" + random.nextInt(SYMBOLS), buying, selling,
+                NavEngine.calculateNavPaise(buying, selling, random.nextDouble(), timestamp),
+                NavEngine.profitLossPaise(buying, selling), NavEngine.profitLossPercentPaise(buying, selling),
+                timestamp);
+        }
+    }
+    
+    private Revaluation job() {
+        return new Revaluation(ForkJoinPool.commonPool(), history, NavModel.DEFAULT, MODEL);
+    }
+    
+    @Benchmark
+    public Revaluation.Result revalue() {
+        return job().run(history.firstSequence(), history.endSequence(), percent -> { });
+    }
+    
+    @Benchmark
+    public SymbolStatsIndex revalueAndReplay() {
+        Revaluation job = job();
+        Revaluation.Result result = job.run(history.firstSequence(), history.endSequence(), percent -> { });
+        SymbolStatsIndex stats = new SymbolStatsIndex(history.symbols());
+        job.replay(result, (id, nav, profitLoss, profitLossPercent, timestamp) ->
+            stats.add(id, nav, profitLoss, profitLossPercent), percent -> { });
+        return stats;
+    }
+}